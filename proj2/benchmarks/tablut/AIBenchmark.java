@@ -0,0 +1,79 @@
+package tablut;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the AI choosing a move (AI.findMove, through myMove) on
+ * each position of Positions, searching to its usual depth on one
+ * thread with seed 1.  The AI is created once per trial, so that the
+ * allocation of its transposition table is not measured, and cleared
+ * before each invocation, so that none starts with results left by an
+ * earlier one.
+ *
+ * @author Yunshun Zhong
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class AIBenchmark {
+
+    /**
+     * Set up a Controller holding the position in POSITIONS, and an AI
+     * to move in it.
+     */
+    @Setup(Level.Trial)
+    public void setUp(Positions positions) {
+        _controller = new Controller(new NullView(), null,
+                new TextReporter(), new TextPlayer(), new AI(), false);
+        _controller.setSeed(SEED);
+        _controller.board().copy(positions.board);
+        _player = (AI) new AI().create(_controller.board().turn(),
+                                       _controller);
+    }
+
+    /**
+     * Make the AI forget its earlier searches.  Clearing the table takes
+     * far less time than the search measured.
+     */
+    @Setup(Level.Invocation)
+    public void clearPlayer() {
+        _player.clear();
+    }
+
+    /**
+     * Return the move the AI chooses.
+     */
+    @Benchmark
+    public String findMove() {
+        return _player.myMove();
+    }
+
+    /**
+     * The seed for the AI's evaluation.
+     */
+    private static final long SEED = 1;
+
+    /**
+     * The Controller whose board holds the position.
+     */
+    private Controller _controller;
+
+    /**
+     * The AI choosing the next move.
+     */
+    private AI _player;
+}
@@ -0,0 +1,112 @@
+package tablut;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Microbenchmarks of the Board operations the AI's search runs in every
+ * node, and of those the GUI and Controller use, on each position of
+ * Positions.
+ *
+ * @author Yunshun Zhong
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BoardBenchmark {
+
+    /**
+     * Record the legal moves of the position in POSITIONS.
+     */
+    @Setup
+    public void setUp(Positions positions) {
+        Board board = positions.board;
+        _moves = new int[Board.MAX_MOVES];
+        _count = board.generateMoves(board.turn(), _moves);
+    }
+
+    /**
+     * Make and unmake each legal move of the position in POSITIONS, and
+     * return the number of moves.
+     */
+    @Benchmark
+    public int makeMove(Positions positions) {
+        Board board = positions.board;
+        for (int i = 0; i < _count; i += 1) {
+            board.makeMove(_moves[i]);
+            board.unmakeMove();
+        }
+        return _count;
+    }
+
+    /**
+     * Return the legal moves of the position in POSITIONS as a list.
+     */
+    @Benchmark
+    public List<Move> legalMoves(Positions positions) {
+        Board board = positions.board;
+        return board.legalMoves(board.turn());
+    }
+
+    /**
+     * Generate the packed legal moves of the position in POSITIONS, as
+     * the search does, and return their number.
+     */
+    @Benchmark
+    public int generateMoves(Positions positions) {
+        Board board = positions.board;
+        return board.generateMoves(board.turn(), _moves);
+    }
+
+    /**
+     * Return the encoding of the position in POSITIONS.
+     */
+    @Benchmark
+    public String encodedBoard(Positions positions) {
+        return positions.board.encodedBoard();
+    }
+
+    /**
+     * Return a copy of the board in POSITIONS.
+     */
+    @Benchmark
+    public Board copy(Positions positions) {
+        return new Board(positions.board);
+    }
+
+    /**
+     * Return the AI's static evaluation of the position in POSITIONS.
+     */
+    @Benchmark
+    public int staticScore(Positions positions) {
+        return AI.staticScore(positions.board, SEED);
+    }
+
+    /**
+     * The evaluation seed.
+     */
+    private static final long SEED = 1;
+
+    /**
+     * The legal moves of the position, packed.
+     */
+    private int[] _moves;
+
+    /**
+     * The number of legal moves.
+     */
+    private int _count;
+}
@@ -0,0 +1,74 @@
+package tablut;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The fixed corpus of positions used by the benchmarks: the initial
+ * position and two positions from a game the AI played against itself
+ * with seed 1, one from the middlegame (seven white pieces and the king
+ * against fourteen black) and one from the endgame (three against
+ * thirteen).  Each is reached by playing its moves from the initial
+ * position, so that boards carry a realistic history.
+ *
+ * @author Yunshun Zhong
+ */
+@State(Scope.Thread)
+public class Positions {
+
+    /**
+     * The name of the position benchmarked: a key of GAMES.
+     */
+    @Param({"opening", "middlegame", "endgame"})
+    public String position;
+
+    /**
+     * The board holding the position.
+     */
+    Board board;
+
+    /**
+     * Set up the board for the position named by position.
+     */
+    @Setup
+    public void setUp() {
+        board = position(position);
+    }
+
+    /**
+     * Return a new board holding the position named NAME.
+     */
+    static Board position(String name) {
+        Board board = new Board();
+        for (int k = 0; k < NAMES.length; k += 1) {
+            if (NAMES[k].equals(name)) {
+                for (String move : GAMES[k].split("\\s+")) {
+                    if (!move.isEmpty()) {
+                        board.makeMove(Move.mv(move));
+                    }
+                }
+                return board;
+            }
+        }
+        throw new IllegalArgumentException("unknown position: " + name);
+    }
+
+    /**
+     * The names of the positions.
+     */
+    static final String[] NAMES = {"opening", "middlegame", "endgame"};
+
+    /**
+     * GAMES[k] holds the moves leading to the position named NAMES[k].
+     */
+    static final String[] GAMES = {
+        "",
+        "e8-d e4-h a4-e e6-h a6-e e7-d i5-h d7-e b5-6 e5-6 d8-g e6-d "
+        + "d9-8 d6-g e4-g g6-e",
+        "e8-d e4-h a4-e e6-h a6-e e7-d i5-h d7-e b5-6 e5-6 d8-g e6-d "
+        + "d9-8 d6-g e4-g g6-e d1-4 e6-d g8-6 e7-b a5-b f5-g f1-5 b7-h "
+        + "e2-6 h7-e e1-6 c5-6 e9-8 d5-c",
+    };
+}
@@ -1,14 +1,21 @@
 package tablut;
 
-import java.util.HashSet;
 import java.util.List;
-
-
-import static java.lang.Math.max;
-import static java.lang.Math.min;
-import static java.lang.Math.random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+
+import static tablut.Bitboard.AROUND_HIGH;
+import static tablut.Bitboard.AROUND_LOW;
+import static tablut.Bitboard.NEIGHBORS_HIGH;
+import static tablut.Bitboard.NEIGHBORS_LOW;
+import static tablut.Bitboard.RAY_HIGH;
+import static tablut.Bitboard.RAY_LOW;
 import static tablut.Square.BOARD_SIZE;
-import static tablut.Square.sq;
+import static tablut.Utils.error;
 
 /**
  * A Player that automatically generates moves.
@@ -21,51 +28,187 @@ class AI extends Player {
      * A position-score magnitude indicating a win (for white if positive,
      * black if negative).
      */
-    private static final int WINNING_VALUE = Integer.MAX_VALUE - 20;
+    static final int WINNING_VALUE = Integer.MAX_VALUE - 20;
     /**
      * A position-score magnitude indicating a forced win in a subsequent
      * move.  This differs from WINNING_VALUE to avoid putting off wins.
      */
-    private static final int WILL_WIN_VALUE = Integer.MAX_VALUE - 40;
+    static final int WILL_WIN_VALUE = Integer.MAX_VALUE - 40;
     /**
      * A magnitude greater than a normal value.
      */
-    private static final int INFTY = Integer.MAX_VALUE;
+    static final int INFTY = Integer.MAX_VALUE;
 
     /**
      * A new AI with no piece or controller (intended to produce
-     * a template).
+     * a template), searching on one thread.
      */
     AI() {
-        this(null, null);
+        this(1);
+    }
+
+    /**
+     * A new AI with no piece or controller (intended to produce
+     * a template), searching on THREADS threads with all optional search
+     * features.
+     */
+    AI(int threads) {
+        this(threads, Searcher.ALL_FEATURES);
+    }
+
+    /**
+     * A new AI with no piece or controller (intended to produce
+     * a template), searching on THREADS threads with the optional search
+     * features FEATURES (see Searcher.setFeatures).
+     */
+    AI(int threads, int features) {
+        this(threads, features, false);
+    }
+
+    /**
+     * A new AI with no piece or controller (intended to produce
+     * a template), searching on THREADS threads with the optional search
+     * features FEATURES, and pondering iff PONDER (see findMove).
+     */
+    AI(int threads, int features, boolean ponder) {
+        this(threads, features, ponder, TABLE_BITS);
+    }
+
+    /**
+     * A new AI with no piece or controller (intended to produce
+     * a template), searching on THREADS threads with the optional search
+     * features FEATURES, pondering iff PONDER, and with a transposition
+     * table of 2**TABLEBITS entries.
+     */
+    AI(int threads, int features, boolean ponder, int tableBits) {
+        this(null, null, threads, features, ponder, tableBits);
+    }
+
+    /**
+     * A new AI playing PIECE under control of CONTROLLER, searching on
+     * THREADS threads with the optional search features FEATURES.
+     */
+    AI(Piece piece, Controller controller, int threads, int features) {
+        this(piece, controller, threads, features, false);
+    }
+
+    /**
+     * A new AI playing PIECE under control of CONTROLLER, searching on
+     * THREADS threads with the optional search features FEATURES, and
+     * pondering iff PONDER.
+     */
+    AI(Piece piece, Controller controller, int threads, int features,
+       boolean ponder) {
+        this(piece, controller, threads, features, ponder, TABLE_BITS);
     }
 
     /**
-     * A new AI playing PIECE under control of CONTROLLER.
+     * A new AI playing PIECE under control of CONTROLLER, searching on
+     * THREADS threads with the optional search features FEATURES,
+     * pondering iff PONDER, and with a transposition table of
+     * 2**TABLEBITS entries (16 bytes each).
      */
-    AI(Piece piece, Controller controller) {
+    AI(Piece piece, Controller controller, int threads, int features,
+       boolean ponder, int tableBits) {
         super(piece, controller);
+        if (threads < 1) {
+            throw error("number of threads must be positive");
+        }
+        if (tableBits < 1 || tableBits > MAX_TABLE_BITS) {
+            throw error("table size must be between 2 and 2**%d entries",
+                        MAX_TABLE_BITS);
+        }
+        _threads = threads;
+        _features = features;
+        _ponder = ponder;
+        _tableBits = tableBits;
+        if (controller == null) {
+            _table = null;
+            _searchers = null;
+        } else {
+            _table = new TranspositionTable(tableBits);
+            _searchers = new Searcher[threads];
+            for (int i = 0; i < threads; i += 1) {
+                _searchers[i] = new Searcher(_table);
+                _searchers[i].setFeatures(features);
+            }
+        }
     }
 
     @Override
     Player create(Piece piece, Controller controller) {
-        return new AI(piece, controller);
+        return new AI(piece, controller, _threads, _features, _ponder,
+                      _tableBits);
     }
 
+    /**
+     * Choose a move for me from the current position on the calling
+     * thread (see chooseMove).
+     */
     @Override
     String myMove() {
+        MoveTask task = moveTask();
+        if (task == null) {
+            return null;
+        }
+        task.run();
+        try {
+            return task.get();
+        } catch (InterruptedException excp) {
+            throw new Error("unexpected interrupt");
+        } catch (ExecutionException excp) {
+            throw new IllegalStateException(excp.getCause());
+        }
+    }
+
+    /**
+     * Start choosing a move for me from the current position on a new
+     * thread (see chooseMove), and return a Future for it.  Cancelling
+     * the Future stops the search and waits for its threads to finish,
+     * after which the Future holds no move.  My Controller must not
+     * change anything but its board meanwhile.
+     */
+    @Override
+    Future<String> startMove() {
+        MoveTask task = moveTask();
+        if (task == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        task.start();
+        return task;
+    }
+
+    /**
+     * Return a MoveTask choosing a move for me from the current
+     * position, ready to run or start, having reported an error and
+     * returning null if it is not my move.
+     */
+    private MoveTask moveTask() {
         Board b = board();
         if (b.winner() != null || b.turn() != myPiece()) {
             _controller.reportError("misplaced move");
             return null;
+        }
+        Board position = new Board(b);
+        long seed = _controller.seed();
+        long budget = _controller.moveTime();
+        long start = System.currentTimeMillis();
+        boolean ponderNext = _ponder
+                && (myPiece() == Piece.WHITE ? _controller.manualBlack()
+                    : _controller.manualWhite());
+        Thread ponder = null;
+        if (ponderHit(b, seed)) {
+            _searchers[0].setLimits(lastDepth(b, budget), start, budget);
+            ponder = _ponderThread;
+            _ponderThread = null;
         } else {
-            Move move = findMove();
-            if (move == null || !board().isLegal(move)) {
-                _controller.reportError("Invalid move. " + "Please try again.");
-                return null;
-            }
-            return move.toString();
+            stopPondering();
+            setPosition(position, seed);
         }
+        Thread pondering = ponder;
+        return new MoveTask(() ->
+                chooseMove(position, pondering, start, budget, ponderNext),
+                ponder);
     }
 
     @Override
@@ -74,87 +217,378 @@ class AI extends Player {
     }
 
     /**
-     * Return a move for me from the current position, assuming there
-     * is a move.
+     * Return a move for me from POSITION, assuming there is a move,
+     * with a time limit of BUDGET milliseconds from START if BUDGET > 0.
+     * Searches to depths 1, 2, ... in turn, each search starting with
+     * the best moves recorded by the one before.  With a time limit,
+     * stops when the time runs out and returns the move found by the
+     * last complete search.  Otherwise, stops at the depth given by
+     * maxDepth.  When searching on more than one thread, the helper
+     * threads search the same position alongside the main one, starting
+     * at staggered depths, until it finishes.
+     * <p>
+     * When pondering against a manual player (iff PONDERNEXT), I go on
+     * to search the position after my move and the reply my search
+     * predicts, in the background, while the opponent chooses a move.
+     * With a time limit, that search has none until the opponent moves;
+     * otherwise, it stops at the depth given by maxDepth.  If the
+     * opponent makes the predicted move, that search, running on thread
+     * PONDER, continues with the limits it would have had if started
+     * then, and has often finished already; otherwise, it is stopped,
+     * PONDER is null, and my Searchers have been set to POSITION.
+     * Either way, it leaves its results in the table.
+     * <p>
+     * Runs in a MoveTask, on the thread calling myMove or on the task's
+     * own, and returns null at once if that thread is interrupted, as
+     * when the task is cancelled.
      */
-    private Move findMove() {
-        Board b = new Board(board());
-        _lastFoundMove = null;
-        int alpha = -INFTY;
-        int beta = INFTY;
-        boolean saveMove = true;
-        int sense = 1;
-        if (b.turn() == Piece.BLACK) {
-            sense = -sense;
+    private String chooseMove(Board position, Thread ponder, long start,
+                              long budget, boolean ponderNext) {
+        Move best;
+        if (ponder != null) {
+            joinUninterruptibly(ponder);
+            best = _ponderMove;
+        } else {
+            best = search(lastDepth(position, budget), start, budget);
+        }
+        if (Thread.currentThread().isInterrupted()) {
+            return null;
+        }
+        if (ponder != null) {
+            _controller.logComment("%s predicted the last move",
+                                   myPiece().toName());
+        }
+        logSearch();
+        if (best == null || !position.isLegal(best)) {
+            _controller.reportError("Invalid move. " + "Please try again.");
+            return null;
+        }
+        if (ponderNext) {
+            startPondering(position, best, budget);
         }
-        int depth = maxDepth(board());
-        findMove(b, depth, saveMove, sense, alpha, beta);
-        return _lastFoundMove;
+        return best.toString();
     }
 
     /**
-     * The move found by the last call to one of the ...FindMove methods
-     * below.
+     * Return the last depth to search BOARD to, given a time limit of
+     * BUDGET milliseconds, or none if BUDGET is 0.
      */
-    private Move _lastFoundMove;
+    private static int lastDepth(Board board, long budget) {
+        return budget > 0 ? Searcher.MAX_DEPTH : maxDepth(board);
+    }
 
     /**
-     * The weight of the captured.
+     * Set my Searchers to search POSITION, with noise derived from SEED,
+     * as a new search, first clearing my table if SEED differs from that
+     * of my last search.
+     */
+    private void setPosition(Board position, long seed) {
+        if (seed != _seed) {
+            _table.clear();
+            _seed = seed;
+        }
+        _table.newSearch();
+        for (Searcher searcher : _searchers) {
+            searcher.setPosition(position, seed);
+        }
+    }
+
+    /**
+     * Search the position given to my Searchers, as for Searcher.search
+     * with LASTDEPTH, START, and BUDGET, on this thread and my helper
+     * threads, and return the move found.
+     */
+    private Move search(int lastDepth, long start, long budget) {
+        Thread[] helpers = new Thread[_searchers.length - 1];
+        for (int i = 0; i < helpers.length; i += 1) {
+            Searcher helper = _searchers[i + 1];
+            int firstDepth = 1 + (i + 1) % 2;
+            helpers[i] = new Thread(() ->
+                    helper.search(firstDepth, Searcher.MAX_DEPTH, start, 0));
+            helpers[i].setDaemon(true);
+            helpers[i].start();
+        }
+        Searcher main = _searchers[0];
+        Move best = main.search(1, lastDepth, start, budget);
+        for (int i = 0; i < helpers.length; i += 1) {
+            _searchers[i + 1].stop();
+            joinUninterruptibly(helpers[i]);
+        }
+        return best;
+    }
+
+    /**
+     * Log the statistics of my last search.
+     */
+    private void logSearch() {
+        Searcher main = _searchers[0];
+        long nodes, researches, cutoffs, firstMoveCutoffs;
+        nodes = researches = cutoffs = firstMoveCutoffs = 0;
+        for (Searcher searcher : _searchers) {
+            nodes += searcher.nodes();
+            researches += searcher.researches();
+            cutoffs += searcher.cutoffs();
+            firstMoveCutoffs += searcher.firstMoveCutoffs();
+        }
+        _controller.logComment("%s searched to depth %d on %d thread(s): "
+                + "%d positions, %d re-searches, %d cutoffs, %.0f%% of them "
+                + "by the first move", myPiece().toName(), main.depth(),
+                _searchers.length, nodes, researches, cutoffs,
+                100.0 * firstMoveCutoffs / Math.max(1, cutoffs));
+    }
+
+    /**
+     * Return true iff I am pondering BOARD, as it is now, with SEED.
+     */
+    private boolean ponderHit(Board board, long seed) {
+        return _ponderThread != null && seed == _seed
+                && board.key() == _ponderBoard.key()
+                && board.moveCount() == _ponderBoard.moveCount()
+                && board.limit() == _ponderBoard.limit();
+    }
+
+    /**
+     * Start searching the position after BEST, my move in BOARD, and the
+     * reply predicted by my last search, on a new thread.  If BUDGET > 0
+     * (there is a time limit per move), the search goes on until
+     * stopped; otherwise, it stops at the depth given by maxDepth.
+     */
+    private void startPondering(Board board, Move best, long budget) {
+        List<Move> line = _searchers[0].principalVariation();
+        if (line.size() < 2 || line.get(0) != best) {
+            return;
+        }
+        Board next = new Board(board);
+        next.makeMove(best);
+        if (next.winner() != null) {
+            return;
+        }
+        next.makeMove(line.get(1));
+        if (next.winner() != null) {
+            return;
+        }
+
+        _ponderBoard = next;
+        _ponderReply = line.get(1);
+        setPosition(next, _seed);
+        long start = System.currentTimeMillis();
+        int lastDepth = lastDepth(next, budget);
+        _ponderMove = null;
+        _ponderThread = new Thread(() ->
+                _ponderMove = search(lastDepth, start, 0));
+        _ponderThread.setDaemon(true);
+        _ponderThread.start();
+    }
+
+    @Override
+    void idle() {
+        stopPondering();
+    }
+
+    /**
+     * Forget the results of all my earlier searches, as if I were new.
+     */
+    void clear() {
+        stopPondering();
+        _table.clear();
+        for (Searcher searcher : _searchers) {
+            searcher.clearHistory();
+        }
+    }
+
+    /**
+     * Return the depth of the last complete search for my last move.
+     */
+    int depth() {
+        return _searchers[0].depth();
+    }
+
+    /**
+     * Return the reply to my last move that I am pondering, or null if I
+     * am not pondering.
+     */
+    Move ponderReply() {
+        return _ponderThread == null ? null : _ponderReply;
+    }
+
+    /**
+     * Return true iff I am searching on my opponent's time.
+     */
+    boolean pondering() {
+        return _ponderThread != null && _ponderThread.isAlive();
+    }
+
+    /**
+     * Return the thread on which I am pondering, or null if I am not.
+     */
+    Thread ponderThread() {
+        return _ponderThread;
+    }
+
+    /**
+     * Stop pondering, if I am.
+     */
+    private void stopPondering() {
+        if (_ponderThread != null) {
+            _searchers[0].stop();
+            joinUninterruptibly(_ponderThread);
+            _ponderThread = null;
+        }
+    }
+
+    /**
+     * The choice of a move, either run by myMove on its caller's thread
+     * or started by startMove on a thread of its own.  Cancelling a
+     * started task stops the search and waits for all the threads
+     * searching to finish, so that I am idle once cancel returns.  That
+     * includes any pondering the task started just before it saw it was
+     * cancelled: the task's thread is joined first, so that its
+     * _ponderThread is visible here.
+     */
+    private class MoveTask extends FutureTask<String> {
+
+        /**
+         * A task choosing a move by calling CHOICE, which first waits
+         * for the thread PONDER, if not null.
+         */
+        MoveTask(Callable<String> choice, Thread ponder) {
+            super(choice);
+            _pondering = ponder;
+        }
+
+        /**
+         * Start choosing on a new thread.
+         */
+        void start() {
+            _thread = new Thread(this);
+            _thread.setDaemon(true);
+            _thread.start();
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(true);
+            _searchers[0].stop();
+            if (_thread != null) {
+                joinUninterruptibly(_thread);
+            }
+            if (_pondering != null) {
+                joinUninterruptibly(_pondering);
+            }
+            stopPondering();
+            return cancelled;
+        }
+
+        /**
+         * The thread pondering the position, or null.
+         */
+        private final Thread _pondering;
+
+        /**
+         * The thread choosing the move once started, or null.
+         */
+        private Thread _thread;
+    }
+
+    /**
+     * Wait for THREAD to finish, even if interrupted meanwhile.
      */
-    private final int capturedWeight = 100000;
-
-    /**
-     * Find a move from position BOARD and return its value, recording
-     * the move found in _lastFoundMove iff SAVEMOVE. The move
-     * should have maximal value or have value > BETA if SENSE==1,
-     * and minimal value or value < ALPHA if SENSE==-1. Searches up to
-     * DEPTH levels.  Searching at level 0 simply returns a static estimate
-     * of the board value and does not set _lastMoveFound.
-     */
-    private int findMove(Board board, int depth, boolean saveMove,
-                         int sense, int alpha, int beta) {
-        if (depth == 1 || board.checkGameOver()) {
-            return sense == 1 ? simpleFindMax(board, alpha, beta)
-                    : simpleFindMin(board, alpha, beta);
-        }
-        int bestSoFar = sense == 1 ? -INFTY : INFTY;
-        List<Move> moves = board.legalMoves(board.turn());
-        for (Move move : moves) {
-            Board nextBoard = new Board(board);
-            nextBoard.makeMove(move);
-            int nextSense = -sense;
-            int nextScore = findMove(nextBoard, depth - 1, false,
-                    nextSense, alpha, beta);
-            if (sense == 1) {
-                if (nextScore >= bestSoFar) {
-                    bestSoFar = nextScore;
-                    alpha = max(alpha, nextScore);
-                    if (saveMove) {
-                        _lastFoundMove = move;
-                    }
-                    if (beta <= alpha) {
-                        break;
-                    }
-                }
-            } else {
-                if (nextScore <= bestSoFar) {
-                    bestSoFar = nextScore;
-                    beta = min(beta, nextScore);
-                    if (saveMove) {
-                        _lastFoundMove = move;
-                    }
-                    if (beta <= alpha) {
-                        break;
-                    }
-                }
+    private static void joinUninterruptibly(Thread thread) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                thread.join();
+                break;
+            } catch (InterruptedException excp) {
+                interrupted = true;
             }
         }
-        if (_lastFoundMove == null) {
-            _lastFoundMove = moves.get(0);
+        if (interrupted) {
+            Thread.currentThread().interrupt();
         }
-        return bestSoFar;
     }
 
+    /**
+     * The noise added by jitter is less than this.
+     */
+    private static final int JITTER_RANGE = 1000;
+
+    /**
+     * The weight of the captured.
+     */
+    private static final int CAPTURED_WEIGHT = 100000;
+
+    /**
+     * The base 2 logarithm of the default number of transposition table
+     * entries, for an AI that has its process to itself.
+     */
+    static final int TABLE_BITS = 20;
+
+    /**
+     * The base 2 logarithm of the largest number of transposition table
+     * entries.
+     */
+    static final int MAX_TABLE_BITS = 28;
+
+    /**
+     * The seed (see Controller.seed) used by my last search.  The scores
+     * in _table are only valid for this seed.
+     */
+    private long _seed;
+
+    /**
+     * The number of threads on which I search.
+     */
+    private final int _threads;
+
+    /**
+     * The optional search features I use.
+     */
+    private final int _features;
+
+    /**
+     * True iff I ponder against manual players (see findMove).
+     */
+    private final boolean _ponder;
+
+    /**
+     * The base 2 logarithm of the number of entries in _table.
+     */
+    private final int _tableBits;
+
+    /**
+     * The thread searching the position I expect next, or null if I am
+     * not pondering.
+     */
+    private Thread _ponderThread;
+
+    /**
+     * The position searched by _ponderThread.
+     */
+    private Board _ponderBoard;
+
+    /**
+     * The predicted reply leading to _ponderBoard.
+     */
+    private Move _ponderReply;
+
+    /**
+     * The move found by _ponderThread, which it sets when it finishes.
+     */
+    private Move _ponderMove;
+
+    /**
+     * Results of earlier searches, kept for the whole game and shared by
+     * all my Searchers.
+     */
+    private final TranspositionTable _table;
+
+    /**
+     * One Searcher per thread; _searchers[0] runs on the thread choosing
+     * the move (see MoveTask) and the rest on helper threads.
+     */
+    private final Searcher[] _searchers;
+
     /**
      * Return a heuristically determined maximum search depth
      * based on characteristics of BOARD.
@@ -183,9 +617,11 @@ class AI extends Player {
     }
 
     /**
-     * Return a heuristic value for BOARD.
+     * Return a heuristic value for BOARD, including noise derived from
+     * SEED (see jitter).  May be called from several threads at once,
+     * and allocates nothing.
      */
-    private int staticScore(Board board) {
+    static int staticScore(Board board, long seed) {
         Square king = board.kingPosition();
         if (king == null) {
             return -WINNING_VALUE;
@@ -193,9 +629,8 @@ class AI extends Player {
             return WINNING_VALUE;
         }
 
-        HashSet<Square> blackPieces = board.pieceLocations(Piece.BLACK);
-        if (blackPieces == null || blackPieces.isEmpty()
-                || blackPieces.size() < 4) {
+        int blackCount = board.pieceCount(Piece.BLACK);
+        if (blackCount < 4) {
             return WINNING_VALUE;
         }
 
@@ -205,89 +640,42 @@ class AI extends Player {
             return -WILL_WIN_VALUE;
         }
 
-        int capturedScore = captured(board) * capturedWeight;
+        int capturedScore = captured(board) * CAPTURED_WEIGHT;
         if (board.turn() == Piece.BLACK) {
             capturedScore = -capturedScore;
         }
 
-        HashSet<Square> whitePieces = board.pieceLocations(Piece.WHITE);
+        int whiteCount = board.pieceCount(Piece.WHITE);
 
-        int squareScore = ((12 * whitePieces.size() - 9 * blackPieces.size()
-                + 10) / (whitePieces.size() + blackPieces.size() + 1) * 1000);
+        int squareScore = ((12 * whiteCount - 9 * blackCount
+                + 10) / (whiteCount + blackCount + 1) * 1000);
 
         int nearKingBlack = nearKingBlack(board, king) * 10;
 
         return capturedScore - nearKingBlack + squareScore
-                + (int) (random() * 1000);
+                + jitter(board, seed);
     }
 
     /**
-     * The last layer which is max, find the max score.
-     *
-     * @param board the board which will be checked.
-     * @param alpha the alpha of the current layer.
-     * @param beta  the beta of the current layer.
-     * @return the score of the current layer.
+     * Return the noise added to the value of BOARD, a number in the range
+     * 0 .. JITTER_RANGE - 1 hashed from BOARD's key and SEED.  It varies
+     * the AI's play from one seed to another, but is the same each time
+     * a position is evaluated with the same seed, so that searches are
+     * reproducible and their results may be kept in the transposition
+     * table.
      */
-    private int simpleFindMax(Board board, int alpha, int beta) {
-        Square square = board.kingPosition();
-        if (square == null) {
-            return -WINNING_VALUE;
-        } else if (square.isEdge()) {
-            return WINNING_VALUE;
-        }
-        int bestSoFar = -WINNING_VALUE;
-        List<Move> moves = board.legalMoves(board.turn());
-        for (Move move : moves) {
-            Board nextBoard = new Board(board);
-            nextBoard.makeMove(move);
-            int nextScore = staticScore(nextBoard);
-            if (nextScore >= bestSoFar) {
-                bestSoFar = nextScore;
-                alpha = max(alpha, nextScore);
-                if (beta <= alpha) {
-                    break;
-                }
-            }
-        }
-        return bestSoFar;
-    }
-
-    /**
-     * The last layer which is min, find the min score.
-     *
-     * @param board the board which will be checked.
-     * @param alpha the alpha of the current layer.
-     * @param beta  the beta of the current layer.
-     * @return the score of the current layer.
-     */
-    private int simpleFindMin(Board board, int alpha, int beta) {
-        Square square = board.kingPosition();
-        if (square == null) {
-            return -WINNING_VALUE;
-        } else if (square.isEdge()) {
-            return WINNING_VALUE;
-        }
-        int bestSoFar = WINNING_VALUE;
-        List<Move> moves = board.legalMoves(board.turn());
-        for (Move move : moves) {
-            Board nextBoard = new Board(board);
-            nextBoard.makeMove(move);
-            int nextScore = staticScore(nextBoard);
-            if (nextScore <= bestSoFar) {
-                bestSoFar = nextScore;
-                beta = min(beta, nextScore);
-                if (beta <= alpha) {
-                    break;
-                }
-            }
-        }
-        return bestSoFar;
+    static int jitter(Board board, long seed) {
+        long hash = board.key() ^ seed;
+        hash = (hash ^ hash >>> 33) * 0xff51afd7ed558ccdL;
+        hash = (hash ^ hash >>> 33) * 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return (int) ((hash >>> 1) % JITTER_RANGE);
     }
 
     /**
      * check the board state,
      * if the White will win in next step, return true, else return false.
+     * That is so when the king has an open line to the edge.
      *
      * @param board  the board which will be checked.
      * @param king   the square of the King.
@@ -298,37 +686,12 @@ class AI extends Player {
             return true;
         }
 
-        int col = king.col();
-        int row = king.row();
-
-        for (int i = col + 1; i < BOARD_SIZE; i++) {
-            if (!(board.get(sq(i, row)) == Piece.EMPTY)) {
-                break;
-            } else if (i == BOARD_SIZE - 1) {
-                return true;
-            }
-        }
-
-        for (int i = 0; i < col; i++) {
-            if (!(board.get(sq(i, row)) == Piece.EMPTY)) {
-                break;
-            } else if (i == col - 1) {
-                return true;
-            }
-        }
-
-        for (int i = row + 1; i < BOARD_SIZE; i++) {
-            if (!(board.get(sq(col, i)) == Piece.EMPTY)) {
-                break;
-            } else if (i == BOARD_SIZE - 1) {
-                return true;
-            }
-        }
-
-        for (int i = 0; i < row; i++) {
-            if (!(board.get(sq(col, i)) == Piece.EMPTY)) {
-                break;
-            } else if (i == row - 1) {
+        int k = king.index();
+        long occupiedLow = board.occupiedLow(),
+                occupiedHigh = board.occupiedHigh();
+        for (int dir = 0; dir <= 3; dir++) {
+            if ((RAY_LOW[k][dir] & occupiedLow) == 0
+                    && (RAY_HIGH[k][dir] & occupiedHigh) == 0) {
                 return true;
             }
         }
@@ -338,24 +701,17 @@ class AI extends Player {
     /**
      * check the board state,
      * if the Black will win in next step, return true, else return false.
+     * That is so when at least three black pieces are next to the king.
      *
      * @param board the board which will be checked.
      * @param king  the square of the King.
      * @return if the Black will win in next step, return true, else false.
      */
     private static boolean blackWillWin(Board board, Square king) {
-
-        int blackSize = 0;
-        for (int dir = 0; dir <= 3; dir++) {
-            Square nearKing = king.rookMove(dir, 1);
-            if (board.get(nearKing) == Piece.BLACK) {
-                blackSize++;
-            }
-        }
-        if (blackSize >= 3) {
-            return true;
-        }
-        return false;
+        int k = king.index();
+        return Bitboard.count(
+                NEIGHBORS_LOW[k] & board.squaresLow(Piece.BLACK),
+                NEIGHBORS_HIGH[k] & board.squaresHigh(Piece.BLACK)) >= 3;
     }
 
     /**
@@ -365,57 +721,55 @@ class AI extends Player {
      * @param board the board which will be checked.
      * @return the number of Piece which has been captured.
      */
-    private int captured(Board board) {
+    private static int captured(Board board) {
         Piece turn = board.turn();
-        String captured = turn.toString() + "-" + turn.toString();
-
         int capturedCount = 0;
 
         for (int i = 0; i < BOARD_SIZE; i++) {
-            StringBuilder colStr = new StringBuilder();
-            StringBuilder rowStr = new StringBuilder();
-            for (int j = 0; j < BOARD_SIZE; j++) {
-                colStr.append(board.get(sq(j, i)));
-                rowStr.append(board.get(sq(i, j)));
-            }
-            int idx = 0;
-            while (colStr.indexOf(captured, idx) >= 0) {
-                idx += 3;
-                capturedCount++;
-            }
-            idx = 0;
-            while (rowStr.indexOf(captured, idx) >= 0) {
-                idx += 3;
-                capturedCount++;
-            }
+            capturedCount += captured(board.rankBits(turn, i),
+                    board.rankBits(Piece.EMPTY, i));
+            capturedCount += captured(board.fileBits(turn, i),
+                    board.fileBits(Piece.EMPTY, i));
         }
 
         return capturedCount;
     }
 
     /**
-     * Count the number of pieces which is near the King.
+     * Count the captures in one row or column, given as the set PIECES
+     * of the positions along it holding the side's pieces and the set
+     * EMPTY of those that are empty (as for Board.rankBits).  A capture
+     * is an empty square between two of the pieces.  The count is that
+     * of the positions 0, 3, 6, ... at or after which a capture starts,
+     * and so depends only on the last capture.
+     *
+     * @param pieces the positions of the pieces.
+     * @param empty  the empty positions.
+     * @return the number of captures counted.
+     */
+    private static int captured(int pieces, int empty) {
+        int starts = pieces & empty >>> 1 & pieces >>> 2;
+        if (starts == 0) {
+            return 0;
+        }
+        return (31 - Integer.numberOfLeadingZeros(starts)) / 3 + 1;
+    }
+
+    /**
+     * Count the number of pieces which is near the King.  Black pieces
+     * orthogonally next to the King count three times.
      *
      * @param board  the board which will be checked.
      * @param king  the Square of King
      * @return the number of Black Piece which is near King
      */
-    private int nearKingBlack(Board board, Square king) {
-        int nearKingBlack = 0;
-        int col = king.col();
-        int row = king.row();
-
-        for (int i = -1; i <= 1; i++) {
-            for (int j = -1; j <= 1; j++) {
-                Square square = sq(col + i, row + j);
-                if (board.get(square) == Piece.BLACK) {
-                    nearKingBlack += 1;
-                    if (i == 0 || j == 0) {
-                        nearKingBlack += 2;
-                    }
-                }
-            }
-        }
-        return nearKingBlack;
+    private static int nearKingBlack(Board board, Square king) {
+        int k = king.index();
+        long blackLow = board.squaresLow(Piece.BLACK),
+                blackHigh = board.squaresHigh(Piece.BLACK);
+        return Bitboard.count(AROUND_LOW[k] & blackLow,
+                AROUND_HIGH[k] & blackHigh)
+                + 2 * Bitboard.count(NEIGHBORS_LOW[k] & blackLow,
+                NEIGHBORS_HIGH[k] & blackHigh);
     }
 }
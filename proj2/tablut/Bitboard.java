@@ -0,0 +1,143 @@
+package tablut;
+
+import static tablut.Square.BOARD_SIZE;
+import static tablut.Square.NUM_SQUARES;
+import static tablut.Square.ROOK_SQUARES;
+import static tablut.Square.sq;
+
+/**
+ * Masks and bit operations for sets of Squares represented as bitboards.
+ * A set of Squares is held in two longs: bit k of the low word stands for
+ * the square with index k (0 <= k < LOW_BITS), and bit k of the high word
+ * for the square with index LOW_BITS + k.  Since LOW_BITS is a multiple of
+ * BOARD_SIZE, every row lies entirely within one of the two words.
+ * All tables are built once from Square.ROOK_SQUARES and never modified.
+ *
+ * @author Yunshun Zhong
+ */
+final class Bitboard {
+
+    /**
+     * The number of squares held in the low word (rows 0-6).
+     */
+    static final int LOW_BITS = 7 * BOARD_SIZE;
+
+    /**
+     * Return the low word of the set containing only the square with
+     * index INDEX.
+     */
+    static long low(int index) {
+        return index < LOW_BITS ? 1L << index : 0L;
+    }
+
+    /**
+     * Return the high word of the set containing only the square with
+     * index INDEX.
+     */
+    static long high(int index) {
+        return index < LOW_BITS ? 0L : 1L << (index - LOW_BITS);
+    }
+
+    /**
+     * Return true iff the set LOW, HIGH contains the square with index
+     * INDEX.
+     */
+    static boolean contains(long low, long high, int index) {
+        return index < LOW_BITS ? (low >>> index & 1L) != 0
+                : (high >>> (index - LOW_BITS) & 1L) != 0;
+    }
+
+    /**
+     * Return the number of squares in the set LOW, HIGH.
+     */
+    static int count(long low, long high) {
+        return Long.bitCount(low) + Long.bitCount(high);
+    }
+
+    /**
+     * Return the smallest square index in the set LOW, HIGH, or -1 if the
+     * set is empty.
+     */
+    static int first(long low, long high) {
+        if (low != 0) {
+            return Long.numberOfTrailingZeros(low);
+        } else if (high != 0) {
+            return LOW_BITS + Long.numberOfTrailingZeros(high);
+        }
+        return -1;
+    }
+
+    /**
+     * RAY_LOW[i][d] and RAY_HIGH[i][d] hold the squares of
+     * ROOK_SQUARES[i][d].
+     */
+    static final long[][]
+            RAY_LOW = new long[NUM_SQUARES][4],
+            RAY_HIGH = new long[NUM_SQUARES][4];
+
+    /**
+     * NEIGHBORS_LOW[i] and NEIGHBORS_HIGH[i] hold the squares orthogonally
+     * adjacent to the square with index i.
+     */
+    static final long[]
+            NEIGHBORS_LOW = new long[NUM_SQUARES],
+            NEIGHBORS_HIGH = new long[NUM_SQUARES];
+
+    /**
+     * AROUND_LOW[i] and AROUND_HIGH[i] hold the squares adjacent to the
+     * square with index i orthogonally or diagonally.
+     */
+    static final long[]
+            AROUND_LOW = new long[NUM_SQUARES],
+            AROUND_HIGH = new long[NUM_SQUARES];
+
+    /**
+     * The squares on the edge of the board.
+     */
+    static final long EDGE_LOW, EDGE_HIGH;
+
+    static {
+        for (int i = 0; i < NUM_SQUARES; i += 1) {
+            for (int d = 0; d < 4; d += 1) {
+                for (Square s : ROOK_SQUARES[i][d]) {
+                    RAY_LOW[i][d] |= low(s.index());
+                    RAY_HIGH[i][d] |= high(s.index());
+                }
+                if (!ROOK_SQUARES[i][d].isEmpty()) {
+                    int next = ROOK_SQUARES[i][d].get(0).index();
+                    NEIGHBORS_LOW[i] |= low(next);
+                    NEIGHBORS_HIGH[i] |= high(next);
+                }
+            }
+        }
+        for (int i = 0; i < NUM_SQUARES; i += 1) {
+            AROUND_LOW[i] = NEIGHBORS_LOW[i];
+            AROUND_HIGH[i] = NEIGHBORS_HIGH[i];
+            for (int d = 0; d < 4; d += 1) {
+                if (!ROOK_SQUARES[i][d].isEmpty()) {
+                    int next = ROOK_SQUARES[i][d].get(0).index();
+                    int side = (d + 1) & 3;
+                    AROUND_LOW[i] |= NEIGHBORS_LOW[next]
+                            & RAY_LOW[next][side];
+                    AROUND_HIGH[i] |= NEIGHBORS_HIGH[next]
+                            & RAY_HIGH[next][side];
+                }
+            }
+        }
+        long edgeLow = 0, edgeHigh = 0;
+        for (int i = 0; i < NUM_SQUARES; i += 1) {
+            if (sq(i).isEdge()) {
+                edgeLow |= low(i);
+                edgeHigh |= high(i);
+            }
+        }
+        EDGE_LOW = edgeLow;
+        EDGE_HIGH = edgeHigh;
+    }
+
+    /**
+     * Not instantiable.
+     */
+    private Bitboard() {
+    }
+}
@@ -1,21 +1,32 @@
 package tablut;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Formatter;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Stack;
+import java.util.Random;
 
 
+import static tablut.Bitboard.EDGE_HIGH;
+import static tablut.Bitboard.EDGE_LOW;
+import static tablut.Bitboard.NEIGHBORS_HIGH;
+import static tablut.Bitboard.NEIGHBORS_LOW;
+import static tablut.Piece.BLACK;
 import static tablut.Piece.EMPTY;
 import static tablut.Piece.KING;
-import static tablut.Square.BOARD_SIZE;
+import static tablut.Piece.WHITE;
+import static tablut.Square.NUM_SQUARES;
+import static tablut.Square.SLIDES;
 import static tablut.Square.SQUARE_LIST;
 import static tablut.Square.sq;
 
 
 /**
- * The state of a Tablut Game.
+ * The state of a Tablut Game.  A Board is not synchronized: each one
+ * should be used by one thread at a time.  Its class data are never
+ * modified after loading, so different Boards may be used by different
+ * threads at once.  Copying a Board counts as using the original.
  *
  * @author Yunshun Zhong
  */
@@ -53,6 +64,18 @@ class Board {
         sq(4, 6), sq(4, 2), sq(2, 4), sq(6, 4)
     };
 
+    /**
+     * The largest number of legal moves available to one side in any
+     * position, and so the size of buffer needed by generateMoves.
+     */
+    static final int MAX_MOVES = 2 * 2 * SIZE * (SIZE - 1);
+
+    /**
+     * The packed form of the null move (see makeNullMove) on the undo
+     * stack.  No real move packs to it.
+     */
+    private static final int NULL_MOVE = 0;
+
     /**
      * Initializes a game board with SIZE squares on a side in the
      * initial position.
@@ -69,18 +92,31 @@ class Board {
     }
 
     /**
-     * Copies MODEL into me.
+     * Copies MODEL into me.  The record of past moves and positions is
+     * shared with MODEL rather than duplicated, so the time this takes
+     * does not depend on the length of the game.
      */
     void copy(Board model) {
         if (model == this) {
             return;
         }
 
-        for (int col = 0; col < BOARD_SIZE; col++) {
-            for (int row = 0; row < BOARD_SIZE; row++) {
-                put(model.get(col, row), sq(col, row));
-            }
+        System.arraycopy(model._low, 0, _low, 0, _low.length);
+        System.arraycopy(model._high, 0, _high, 0, _high.length);
+        for (int s = 0; s < _pieces.length; s += 1) {
+            System.arraycopy(model._pieces[s], 0, _pieces[s], 0,
+                    model._pieceCount[s]);
         }
+        System.arraycopy(model._pieceCount, 0, _pieceCount, 0,
+                _pieceCount.length);
+        System.arraycopy(model._pieceSlot, 0, _pieceSlot, 0,
+                _pieceSlot.length);
+        for (int k = WHITE_BITS; k < _ranks.length; k += 1) {
+            System.arraycopy(model._ranks[k], 0, _ranks[k], 0, SIZE);
+            System.arraycopy(model._files[k], 0, _files[k], 0, SIZE);
+        }
+        this._kingIndex = model._kingIndex;
+        this._key = model._key;
 
         this._moveCount = model.moveCount();
         this._repeated = model.repeatedPosition();
@@ -88,21 +124,23 @@ class Board {
         this._winner = model.winner();
         this._limit = model._limit;
 
-        this.boardStateStack.clear();
-        for (String state : model.boardStateStack) {
-            this.boardStateStack.push(state);
-        }
+        this._history.copy(model._history);
+        this._undo.copy(model._undo);
     }
 
     /**
      * Clears the board to the initial position.
      */
     void init() {
-        for (int col = 0; col < BOARD_SIZE; col++) {
-            for (int row = 0; row < BOARD_SIZE; row++) {
-                put(Piece.EMPTY, sq(col, row));
-            }
+        Arrays.fill(_low, 0L);
+        Arrays.fill(_high, 0L);
+        Arrays.fill(_pieceCount, 0);
+        for (int k = WHITE_BITS; k < _ranks.length; k += 1) {
+            Arrays.fill(_ranks[k], 0);
+            Arrays.fill(_files[k], 0);
         }
+        _kingIndex = -1;
+        _key = 0;
 
         put(Piece.KING, THRONE);
 
@@ -117,11 +155,52 @@ class Board {
         this._moveCount = 0;
         this._winner = null;
         this._turn = Piece.BLACK;
+        this._key ^= BLACK_TO_MOVE;
         this._repeated = false;
         this._limit = 0;
 
-        this.boardStateStack.clear();
-        this.boardStateStack.push(encodedBoard());
+        this._history.clear();
+        pushHistory();
+        this._undo.clear();
+    }
+
+    /**
+     * Sets the board to the position ENCODED, in the form returned by
+     * encodedBoard, with no moves made or undoable and no move limit.
+     * It is an error if ENCODED is not of that form, or does not have
+     * exactly one king.
+     */
+    void init(String encoded) {
+        Piece[] contents = new Piece[encoded.length()];
+        for (int k = 0; k < contents.length; k += 1) {
+            for (Piece p : PIECES) {
+                if (p.toString().charAt(0) == encoded.charAt(k)) {
+                    contents[k] = p;
+                }
+            }
+        }
+        if (contents.length != NUM_SQUARES + 1
+                || contents[0] != WHITE && contents[0] != BLACK
+                || Arrays.asList(contents).contains(null)) {
+            throw Utils.error("bad board encoding: %s", encoded);
+        }
+        int kings = 0;
+        for (Piece piece : contents) {
+            if (piece == KING) {
+                kings += 1;
+            }
+        }
+        if (kings != 1) {
+            throw Utils.error("board must have one king: %s", encoded);
+        }
+
+        init();
+        for (Square square : SQUARE_LIST) {
+            put(contents[square.index() + 1], square);
+        }
+        setTurn(contents[0]);
+        clearUndo();
+        pushHistory();
     }
 
     /**
@@ -157,30 +236,46 @@ class Board {
     }
 
     /**
-     * Record current position and set winner() next mover if the current
-     * position is a repeat.
+     * Set winner() next mover if the current position is a repeat, that
+     * is, if its key equals that of the position four moves before it.
+     * A null move (see makeNullMove) among those four is not a move of
+     * the game, so there is no repeat then.
      */
     private void checkRepeated() {
-        if (boardStateStack.isEmpty() || boardStateStack.size() < 5) {
+        if (_history.size() < 5) {
             _repeated = false;
             return;
         }
+        for (int k = 1; k <= 3; k += 1) {
+            if (((int) _undo.peek(k) & MOVE_MASK) == NULL_MOVE) {
+                _repeated = false;
+                return;
+            }
+        }
 
-        String curState = _turn.opponent().toString()
-                + encodedBoard().substring(1);
+        long curKey = _key ^ BLACK_TO_MOVE;
+        if (curKey == _history.peek(3)) {
+            _winner = _turn.opponent();
+            _repeated = true;
+        }
+    }
 
-        int curIndex = 0;
+    /**
+     * Record the key of the current position in the history.
+     */
+    private void pushHistory() {
+        _history.push(_key);
+    }
 
-        for (String historyState : boardStateStack) {
-            if (curIndex == boardStateStack.size() - 4) {
-                if (curState.equals(historyState)) {
-                    _winner = _turn.opponent();
-                    _repeated = true;
-                }
-                break;
-            }
-            curIndex++;
-        }
+    /**
+     * Return a 64-bit Zobrist hash of the current position: the
+     * exclusive or of a random key for each piece on its square, and of
+     * another for black to move.  It is maintained incrementally as
+     * pieces are placed and turns change, so equal positions have equal
+     * keys and distinct ones almost certainly differ.
+     */
+    long key() {
+        return _key;
     }
 
     /**
@@ -202,22 +297,71 @@ class Board {
      * Return location of the king.
      */
     Square kingPosition() {
-        for (int col = 0; col < BOARD_SIZE; col++) {
-            for (int row = 0; row < BOARD_SIZE; row++) {
-                Piece curPiece = get(col, row);
-                if (Piece.KING == curPiece) {
-                    return sq(col, row);
-                }
-            }
+        return _kingIndex < 0 ? null : sq(_kingIndex);
+    }
+
+    /**
+     * Return the number of pieces on SIDE (for white, including the
+     * king).
+     */
+    int pieceCount(Piece side) {
+        return _pieceCount[sideIndex(side)];
+    }
+
+    /**
+     * Return the squares of row ROW holding P as a set of columns: bit c
+     * of the result is set iff the square in column c holds P.
+     */
+    int rankBits(Piece p, int row) {
+        if (p == EMPTY) {
+            return ~rankOccupancy(row) & LINE_MASK;
+        }
+        return _ranks[p.ordinal()][row];
+    }
+
+    /**
+     * Return the squares of column COL holding P as a set of rows: bit r
+     * of the result is set iff the square in row r holds P.
+     */
+    int fileBits(Piece p, int col) {
+        if (p == EMPTY) {
+            return ~fileOccupancy(col) & LINE_MASK;
         }
-        return null;
+        return _files[p.ordinal()][col];
+    }
+
+    /**
+     * Return the low word of the set of squares (as described in
+     * Bitboard) holding P, which is not EMPTY.
+     */
+    long squaresLow(Piece p) {
+        assert p != EMPTY;
+        return _low[p.ordinal()];
+    }
+
+    /**
+     * Return the high word of the set of squares holding P, which is not
+     * EMPTY.
+     */
+    long squaresHigh(Piece p) {
+        assert p != EMPTY;
+        return _high[p.ordinal()];
+    }
+
+    /**
+     * Return the square of the Kth piece on SIDE, where 0 <= K <
+     * pieceCount(SIDE).  The pieces are in no particular order, which
+     * changes as pieces move.
+     */
+    Square pieceSquare(Piece side, int k) {
+        return sq(_pieces[sideIndex(side)][k]);
     }
 
     /**
      * Return the contents the square at S.
      */
     final Piece get(Square s) {
-        return get(s.col(), s.row());
+        return get(s.index());
     }
 
     /**
@@ -225,7 +369,23 @@ class Board {
      * 0 <= COL, ROW <= 9.
      */
     final Piece get(int col, int row) {
-        return checkerBoard[col][row];
+        return get(sq(col, row));
+    }
+
+    /**
+     * Return the contents of the square whose index is INDEX.
+     */
+    private Piece get(int index) {
+        if (Bitboard.contains(_low[BLACK_BITS], _high[BLACK_BITS], index)) {
+            return BLACK;
+        } else if (Bitboard.contains(_low[WHITE_BITS], _high[WHITE_BITS],
+                index)) {
+            return WHITE;
+        } else if (Bitboard.contains(_low[KING_BITS], _high[KING_BITS],
+                index)) {
+            return KING;
+        }
+        return EMPTY;
     }
 
     /**
@@ -239,15 +399,60 @@ class Board {
      * Set square S to P.
      */
     final void put(Piece p, Square s) {
-        checkerBoard[s.col()][s.row()] = p;
+        int index = s.index();
+        Piece old = get(index);
+        _key ^= ZOBRIST[old.ordinal()][index]
+                ^ ZOBRIST[p.ordinal()][index];
+        if (old != EMPTY) {
+            int side = sideIndex(old);
+            _pieceCount[side] -= 1;
+            int last = _pieces[side][_pieceCount[side]];
+            _pieces[side][_pieceSlot[index]] = last;
+            _pieceSlot[last] = _pieceSlot[index];
+            if (index == _kingIndex) {
+                _kingIndex = -1;
+            }
+            _ranks[old.ordinal()][s.row()] &= ~(1 << s.col());
+            _files[old.ordinal()][s.col()] &= ~(1 << s.row());
+        }
+        if (p != EMPTY) {
+            int side = sideIndex(p);
+            _pieces[side][_pieceCount[side]] = index;
+            _pieceSlot[index] = _pieceCount[side];
+            _pieceCount[side] += 1;
+            if (p == KING) {
+                _kingIndex = index;
+            }
+            _ranks[p.ordinal()][s.row()] |= 1 << s.col();
+            _files[p.ordinal()][s.col()] |= 1 << s.row();
+        }
+        long low = Bitboard.low(index), high = Bitboard.high(index);
+        for (int k = WHITE_BITS; k < _low.length; k += 1) {
+            _low[k] &= ~low;
+            _high[k] &= ~high;
+        }
+        if (p != EMPTY) {
+            _low[p.ordinal()] |= low;
+            _high[p.ordinal()] |= high;
+        }
     }
 
     /**
      * Set square S to P and record for undoing.
      */
     final void revPut(Piece p, Square s) {
-        checkerBoard[s.col()][s.row()] = p;
-        boardStateStack.push(encodedBoard());
+        put(p, s);
+        pushHistory();
+    }
+
+    /**
+     * Make SIDE the side to move, as when setting up a position with put.
+     */
+    void setTurn(Piece side) {
+        if (side != _turn) {
+            _turn = side;
+            _key ^= BLACK_TO_MOVE;
+        }
     }
 
     /**
@@ -263,32 +468,31 @@ class Board {
      * squares along it, other than FROM, must be empty.
      */
     boolean isUnblockedMove(Square from, Square to) {
-        int scol = from.col();
-        int ecol = to.col();
-        int srow = from.row();
-        int erow = to.row();
-        if (from.col() < to.col()) {
-            scol = from.col() + 1;
-            ecol = to.col();
-        } else if (from.col() > to.col()) {
-            scol = to.col();
-            ecol = from.col() - 1;
-        }
-        if (from.row() < to.row()) {
-            srow = from.row() + 1;
-            erow = to.row();
-        } else if (from.row() > to.row()) {
-            srow = to.row();
-            erow = from.row() - 1;
-        }
-        for (int col = scol; col <= ecol; col++) {
-            for (int row = srow; row <= erow; row++) {
-                if (Piece.EMPTY != get(col, row)) {
-                    return false;
-                }
-            }
+        if (!from.isRookMove(to)) {
+            return false;
+        } else if (from.row() == to.row()) {
+            return (SLIDES[from.col()][rankOccupancy(from.row())]
+                    >> to.col() & 1) != 0;
+        } else {
+            return (SLIDES[from.row()][fileOccupancy(from.col())]
+                    >> to.row() & 1) != 0;
         }
-        return true;
+    }
+
+    /**
+     * Return the set of occupied columns in row ROW, as for rankBits.
+     */
+    private int rankOccupancy(int row) {
+        return _ranks[WHITE_BITS][row] | _ranks[BLACK_BITS][row]
+                | _ranks[KING_BITS][row];
+    }
+
+    /**
+     * Return the set of occupied rows in column COL, as for fileBits.
+     */
+    private int fileOccupancy(int col) {
+        return _files[WHITE_BITS][col] | _files[BLACK_BITS][col]
+                | _files[KING_BITS][col];
     }
 
     /**
@@ -329,6 +533,16 @@ class Board {
      * Move FROM-TO, assuming this is a legal move.
      */
     void makeMove(Square from, Square to) {
+        makeMove(from.index() << 7 | to.index());
+    }
+
+    /**
+     * Make MOVE, a legal move packed as by Move.packed.  Allocates
+     * nothing.
+     */
+    void makeMove(int move) {
+        Square from = sq(move >>> 7), to = sq(move & 0x7f);
+        pushUndo(move);
 
         Piece piece = get(from);
 
@@ -346,14 +560,16 @@ class Board {
             return;
         }
 
-        List<Square> rookSquares = rookSquare(to);
-        rookSquares.forEach(square -> capture(to, square));
+        Piece side = piece.side();
+        int toIndex = to.index();
+        for (int dir = 0; dir <= 3; dir++) {
+            capture(toIndex, dir, side);
+        }
         if (_winner != null) {
             return;
         }
 
-        HashSet<Square> blacks = pieceLocations(Piece.BLACK);
-        if (blacks == null || blacks.isEmpty()) {
+        if (pieceCount(BLACK) == 0) {
             _winner = Piece.WHITE;
             return;
         }
@@ -364,7 +580,8 @@ class Board {
             _winner = piece.opponent();
         } else {
             _turn = piece.opponent();
-            boardStateStack.push(encodedBoard());
+            _key ^= BLACK_TO_MOVE;
+            pushHistory();
         }
     }
 
@@ -372,97 +589,134 @@ class Board {
      * Move according to MOVE, assuming it is a legal move.
      */
     void makeMove(Move move) {
-        makeMove(move.from(), move.to());
+        makeMove(move.packed());
     }
 
     /**
-     * Capture the piece between SQ0 and SQ2, assuming a piece just moved to
-     * SQ0 and the necessary conditions are satisfied.
+     * Return true iff MOVE, a legal move packed as by Move.packed, would
+     * capture a piece.  For speed, the king counts as captured whenever
+     * it would be between the moving piece and a hostile square.
      */
-    private void capture(Square sq0, Square sq2) {
-        Piece piece0 = get(sq0);
-        Piece piece2 = get(sq2);
-
-        if (piece0.side() != piece2.side()) {
-            if (sq2 != THRONE || piece2 == KING) {
-                return;
+    boolean isCapture(int move) {
+        int from = move >>> 7, to = move & 0x7f;
+        Piece side = get(from).side();
+        for (int dir = 0; dir <= 3; dir++) {
+            int partner = PARTNER[to][dir];
+            if (partner < 0) {
+                continue;
+            }
+            Piece piece1 = get(VICTIM[to][dir]);
+            if (piece1 == Piece.EMPTY || piece1.side() == side) {
+                continue;
+            }
+            Piece piece2 = partner == from ? Piece.EMPTY : get(partner);
+            if (piece2.side() == side
+                    || HOSTILE[partner] && piece2 == Piece.EMPTY) {
+                return true;
             }
         }
+        return false;
+    }
 
-        Square s1 = sq0.between(sq2);
-        Piece piece1 = get(s1);
+    /**
+     * Capture the piece next to the square with index TO in direction
+     * DIR, if any, assuming that a piece of SIDE just moved to TO.
+     */
+    private void capture(int to, int dir, Piece side) {
+        int partner = PARTNER[to][dir];
+        if (partner < 0) {
+            return;
+        }
+        Piece piece2 = get(partner);
+        if (piece2.side() != side
+                && !(HOSTILE[partner] && piece2 == Piece.EMPTY)) {
+            return;
+        }
 
-        if (piece1 == Piece.EMPTY || piece1.side() == piece0.side()) {
+        int victim = VICTIM[to][dir];
+        Piece piece1 = get(victim);
+        if (piece1 == Piece.EMPTY || piece1.side() == side) {
             return;
         }
 
-        if (Piece.KING == piece1) {
-            boolean blackWin = false;
-            if (THRONE == s1) {
-                if (get(NTHRONE) == Piece.BLACK && get(ETHRONE) == Piece.BLACK
-                        && get(STHRONE) == Piece.BLACK
-                        && get(WTHRONE) == Piece.BLACK) {
-                    blackWin = true;
-                }
-            } else if (NTHRONE == s1 || ETHRONE == s1 || STHRONE == s1
-                    || WTHRONE == s1) {
-                int blackCount = 0;
-                for (int dir = 0; dir <= 3; dir++) {
-                    Square square = s1.rookMove(dir, 1);
-                    if (square != null && get(square) == Piece.BLACK) {
-                        blackCount++;
-                    }
-                }
-                if (blackCount == 3) {
-                    blackWin = true;
-                }
-            } else {
-                blackWin = true;
-            }
-            if (blackWin) {
-                _winner = Piece.BLACK;
-                put(Piece.EMPTY, s1);
-                _repeated = true;
+        if (piece1 == Piece.KING) {
+            int guards = KING_GUARDS[victim];
+            if (guards > 0 && guards > Bitboard.count(
+                    NEIGHBORS_LOW[victim] & _low[BLACK_BITS],
+                    NEIGHBORS_HIGH[victim] & _high[BLACK_BITS])) {
+                return;
             }
-        } else {
-            put(Piece.EMPTY, s1);
+            _winner = Piece.BLACK;
+            _repeated = true;
         }
-
+        put(Piece.EMPTY, sq(victim));
+        _undo.setTop(_undo.peek(0)
+                | (long) piece1.ordinal() << (CAPTURES_SHIFT + 2 * dir));
     }
 
     /**
      * Undo one move.  Has no effect on the initial board.
      */
     void undo() {
-        if (_moveCount > 0) {
-            undoPosition();
-            _moveCount--;
-            _winner = null;
+        if (_undo.size() > 0) {
+            unmakeMove();
         }
     }
 
     /**
-     * Remove record of current position in the set of positions encountered,
-     * unless it is a repeated position or we are at the first move.
+     * Record the packed MOVE, which is about to be made, together with
+     * the state that makeMove may change, on the undo stack.
      */
-    private void undoPosition() {
-        if (boardStateStack.isEmpty()) {
-            return;
-        }
-        boardStateStack.pop();
-        String previous = boardStateStack.peek();
-
-        char[] states = previous.toCharArray();
-        assert states.length == SQUARE_LIST.size() + 1;
+    private void pushUndo(int move) {
+        int flags = _turn.ordinal()
+                | (_winner == null ? 0 : _winner.ordinal()) << 2
+                | (_repeated ? 1 : 0) << 4;
+        _undo.push(move | (long) flags << FLAGS_SHIFT);
+    }
 
-        _turn = Piece.getPieceBySymbol("" + states[0]);
+    /**
+     * Undo the last move made by makeMove, restoring the pieces it moved
+     * and captured and the turn, winner, and repetition status before it.
+     * Assumes that there is such a move.
+     */
+    void unmakeMove() {
+        long record = _undo.pop();
+        int move = (int) record & MOVE_MASK,
+                captures = (int) (record >>> CAPTURES_SHIFT) & 0xff,
+                flags = (int) (record >>> FLAGS_SHIFT);
+        if (move != NULL_MOVE) {
+            Square from = sq(move >>> 7), to = sq(move & 0x7f);
+            put(get(to), from);
+            put(Piece.EMPTY, to);
+            for (int dir = 0; captures != 0; dir += 1, captures >>>= 2) {
+                if ((captures & 3) != 0) {
+                    put(PIECES[captures & 3], sq(VICTIM[to.index()][dir]));
+                }
+            }
+            _moveCount -= 1;
+        }
 
-        for (int index = 1; index < states.length; index++) {
-            Square square = sq(index - 1);
-            Piece piece = Piece.getPieceBySymbol("" + states[index]);
-            put(piece, square);
+        Piece turn = PIECES[flags & 3];
+        if (turn != _turn) {
+            _key ^= BLACK_TO_MOVE;
+            _history.pop();
         }
-        _repeated = false;
+        _turn = turn;
+        _winner = (flags >>> 2 & 3) == 0 ? null : PIECES[flags >>> 2 & 3];
+        _repeated = (flags >>> 4 & 1) != 0;
+    }
+
+    /**
+     * Pass the turn to the other side without moving.  This is not a
+     * legal move in Tablut, and does not count as one; the AI uses it to
+     * test whether a position is good enough that even passing keeps it
+     * so.  It is undone by unmakeMove.  Assumes the game is not over.
+     */
+    void makeNullMove() {
+        pushUndo(NULL_MOVE);
+        _turn = _turn.opponent();
+        _key ^= BLACK_TO_MOVE;
+        pushHistory();
     }
 
     /**
@@ -470,8 +724,9 @@ class Board {
      * current position or win status.
      */
     void clearUndo() {
-        boardStateStack.clear();
+        this._history.clear();
         this._moveCount = 0;
+        this._undo.clear();
     }
 
     /**
@@ -479,31 +734,112 @@ class Board {
      * SIDE (ignoring whose turn it is at the moment).
      */
     List<Move> legalMoves(Piece side) {
-        HashSet<Square> squares = pieceLocations(side);
-        List<Move> moves = new ArrayList<>();
-
-        for (Square square : squares) {
-            for (int dir = 0; dir <= 3; dir++) {
-                int step = 1;
-                while (true) {
-                    Square temp = square.rookMove(dir, step++);
-                    if (temp == null || get(temp) != Piece.EMPTY) {
-                        break;
+        int[] packed = new int[MAX_MOVES];
+        int n = generateMoves(side, packed);
+        List<Move> moves = new ArrayList<>(n);
+        for (int i = 0; i < n; i += 1) {
+            moves.add(Move.mv(packed[i]));
+        }
+        return moves;
+    }
+
+    /**
+     * Store all legal moves on the current board for SIDE (ignoring whose
+     * turn it is at the moment), packed as by Move.packed, in MOVES[0 .. ]
+     * in the same order as legalMoves, and return their number.  MOVES
+     * must have room for MAX_MOVES moves.  Allocates nothing.
+     */
+    int generateMoves(Piece side, int[] moves) {
+        int n = 0;
+        int throneCol = THRONE.col(), throneRow = THRONE.row();
+
+        for (int kind : side.side() == WHITE ? WHITE_KINDS : BLACK_KINDS) {
+            long piecesLow = _low[kind], piecesHigh = _high[kind];
+            while (piecesLow != 0 || piecesHigh != 0) {
+                int from = Bitboard.first(piecesLow, piecesHigh);
+                piecesLow &= ~Bitboard.low(from);
+                piecesHigh &= ~Bitboard.high(from);
+                int col = from % SIZE, row = from / SIZE;
+                int rowReach = SLIDES[col][rankOccupancy(row)],
+                        colReach = SLIDES[row][fileOccupancy(col)];
+                if (kind != KING_BITS) {
+                    if (row == throneRow) {
+                        rowReach &= ~(1 << throneCol);
+                    }
+                    if (col == throneCol) {
+                        colReach &= ~(1 << throneRow);
                     }
-                    moves.add(Move.mv(square, temp));
                 }
+                int above = -(2 << row), right = -(2 << col);
+                n = addMoves(moves, n, from, colReach & above, col, SIZE);
+                n = addMoves(moves, n, from, rowReach & right,
+                        row * SIZE, 1);
+                n = addMoves(moves, n, from, colReach & ~above, col, SIZE);
+                n = addMoves(moves, n, from, rowReach & ~right,
+                        row * SIZE, 1);
             }
         }
 
-        return moves;
+        return n;
     }
 
     /**
-     * Return true iff SIDE has a legal move.
+     * Store the moves from the square with index FROM to each position in
+     * REACH (a set of positions along a row or column, as for
+     * Square.SLIDES) in MOVES[N .. ], and return the new number of moves.
+     * Position j is the square with index FIRST + j * STEP.
+     */
+    private static int addMoves(int[] moves, int n, int from, int reach,
+                                int first, int step) {
+        while (reach != 0) {
+            int j = Integer.numberOfTrailingZeros(reach);
+            reach &= reach - 1;
+            moves[n] = from << 7 | (first + j * step);
+            n += 1;
+        }
+        return n;
+    }
+
+    /**
+     * Return true iff SIDE has a legal move.  Rather than generating
+     * moves, looks for a piece with an empty square next to it, and
+     * stops at the first one found.  An empty throne only counts for a
+     * piece other than the king if the square beyond it is empty too.
      */
     boolean hasMove(Piece side) {
-        List<Move> moves = legalMoves(side);
-        return !moves.isEmpty();
+        return mobilePieces(side, 1) > 0;
+    }
+
+    /**
+     * Return the number of SIDE's pieces that have a legal move, or LIMIT
+     * if that is smaller, stopping once LIMIT pieces are found.  Pieces
+     * are found as for hasMove.
+     */
+    int mobilePieces(Piece side, int limit) {
+        long emptyLow = ~occupiedLow(), emptyHigh = ~occupiedHigh();
+        int throne = THRONE.index();
+        int s = sideIndex(side);
+        int found = 0;
+        for (int k = 0; k < _pieceCount[s] && found < limit; k += 1) {
+            int from = _pieces[s][k];
+            long toLow = NEIGHBORS_LOW[from] & emptyLow,
+                    toHigh = NEIGHBORS_HIGH[from] & emptyHigh;
+            if (from != _kingIndex
+                    && Bitboard.contains(toLow, toHigh, throne)) {
+                toLow &= ~Bitboard.low(throne);
+                toHigh &= ~Bitboard.high(throne);
+                Square beyond =
+                        THRONE.rookMove(sq(from).direction(THRONE), 1);
+                if (get(beyond) == EMPTY) {
+                    found += 1;
+                    continue;
+                }
+            }
+            if (toLow != 0 || toHigh != 0) {
+                found += 1;
+            }
+        }
+        return found;
     }
 
     @Override
@@ -544,19 +880,27 @@ class Board {
     public HashSet<Square> pieceLocations(Piece side) {
         assert side != EMPTY;
 
-        Piece targetSize = side.side();
         HashSet<Square> set = new HashSet<>();
-
-        for (int col = 0; col < BOARD_SIZE; col++) {
-            for (int row = 0; row < BOARD_SIZE; row++) {
-                if (checkerBoard[col][row].side() == targetSize) {
-                    set.add(sq(col, row));
-                }
-            }
+        for (int k = 0; k < pieceCount(side); k += 1) {
+            set.add(pieceSquare(side, k));
         }
         return set;
     }
 
+    /**
+     * Return the low word of the set of occupied squares.
+     */
+    long occupiedLow() {
+        return _low[WHITE_BITS] | _low[BLACK_BITS] | _low[KING_BITS];
+    }
+
+    /**
+     * Return the high word of the set of occupied squares.
+     */
+    long occupiedHigh() {
+        return _high[WHITE_BITS] | _high[BLACK_BITS] | _high[KING_BITS];
+    }
+
     /**
      * Return the contents of _board in the order of SQUARE_LIST as a sequence
      * of characters: the toString values of the current turn and Pieces.
@@ -595,52 +939,184 @@ class Board {
     private int _limit;
 
     /**
-     * Define the board.
+     * Indices into _low and _high of the bitboards for each kind of piece.
      */
-    private Piece[][] checkerBoard = new Piece[BOARD_SIZE][BOARD_SIZE];
+    private static final int
+            WHITE_BITS = WHITE.ordinal(),
+            BLACK_BITS = BLACK.ordinal(),
+            KING_BITS = KING.ordinal();
 
     /**
-     * the undo stack.
+     * The bitboards making up each side.
      */
-    private Stack<String> boardStateStack = new Stack<>();
+    private static final int[]
+            WHITE_KINDS = {WHITE_BITS, KING_BITS},
+            BLACK_KINDS = {BLACK_BITS};
 
     /**
-     * get the squares that is separated from the square
-     * by one position(horizontal or vertical).
-     *
-     * @param square means the center square.
-     *
-     * @return the list of square which is near the square.
+     * Define the board: _low[k] and _high[k] together hold the set of
+     * squares (as described in Bitboard) occupied by the Piece whose
+     * ordinal is k.  The entries for EMPTY are unused.
      */
-    List<Square> rookSquare(Square square) {
-        int col = square.col();
-        int row = square.row();
-        int step = 2;
+    private final long[] _low = new long[Piece.values().length],
+            _high = new long[Piece.values().length];
 
-        List<Square> rookSquares = new ArrayList<>();
-        if (col < BOARD_SIZE - 2) {
-            rookSquares.add(square.rookMove(1, step));
-        }
-        if (col > 1) {
-            rookSquares.add(square.rookMove(3, step));
+    /**
+     * Piece lists: _pieces[s][0 .. _pieceCount[s]-1] are the indices of
+     * the squares occupied by the side with sideIndex s, in no particular
+     * order, and _pieceSlot[i] is the position of square i in its side's
+     * list (if occupied).  Maintained by put, so kept up to date by
+     * makeMove, capture, and unmakeMove as well.
+     */
+    private final int[][] _pieces = new int[2][NUM_SQUARES];
+
+    /**
+     * Rows and columns as sets of 9 bits: bit c of _ranks[k][r], and bit
+     * r of _files[k][c], is set iff the square at column c and row r
+     * holds the Piece whose ordinal is k.  The entries for EMPTY are
+     * unused.  Maintained by put.
+     */
+    private final int[][] _ranks = new int[Piece.values().length][SIZE],
+            _files = new int[Piece.values().length][SIZE];
+
+    /**
+     * The set of all nine squares of a row or column, as for rankBits.
+     */
+    private static final int LINE_MASK = (1 << SIZE) - 1;
+
+    /**
+     * The lengths of the piece lists in _pieces.
+     */
+    private final int[] _pieceCount = new int[2];
+
+    /**
+     * Positions of squares in the piece lists (see _pieces).
+     */
+    private final int[] _pieceSlot = new int[NUM_SQUARES];
+
+    /**
+     * The index of the king's square, or -1 if the king is off the board.
+     */
+    private int _kingIndex;
+
+    /**
+     * Return the index of P's side in _pieces and _pieceCount: 0 for
+     * white (including the king) and 1 for black.
+     */
+    private static int sideIndex(Piece p) {
+        return p == BLACK ? 1 : 0;
+    }
+
+    /**
+     * Zobrist keys: ZOBRIST[k][i] is the key of the Piece with ordinal k on
+     * the square with index i (0 for EMPTY).  The keys come from a fixed
+     * seed, so that hashes are the same from run to run.
+     */
+    private static final long[][] ZOBRIST =
+            new long[Piece.values().length][NUM_SQUARES];
+
+    /**
+     * The Zobrist key included when black is to move.
+     */
+    private static final long BLACK_TO_MOVE;
+
+    static {
+        Random keys = new Random(0x7ab1e7L);
+        for (int k = WHITE.ordinal(); k < ZOBRIST.length; k += 1) {
+            for (int i = 0; i < NUM_SQUARES; i += 1) {
+                ZOBRIST[k][i] = keys.nextLong();
+            }
         }
-        if (row < BOARD_SIZE - 2) {
-            rookSquares.add(square.rookMove(0, step));
+        BLACK_TO_MOVE = keys.nextLong();
+    }
+
+    /**
+     * Capture tables.  For the square with index i and each direction d
+     * (as for Square.rookMove), VICTIM[i][d] is the index of the adjacent
+     * square in direction d, whose piece a piece moving to i may capture,
+     * and PARTNER[i][d] is the index of the square beyond that, which must
+     * be hostile to the victim.  Both are -1 where PARTNER[i][d] would be
+     * off the board.
+     */
+    static final int[][]
+            VICTIM = new int[NUM_SQUARES][4],
+            PARTNER = new int[NUM_SQUARES][4];
+
+    /**
+     * HOSTILE[i] is true iff the square with index i is hostile to pieces
+     * of both sides when empty (that is, iff it is the throne).
+     */
+    private static final boolean[] HOSTILE = new boolean[NUM_SQUARES];
+
+    /**
+     * KING_GUARDS[i] is the number of black pieces that must surround the
+     * king on the square with index i to capture it: 4 on the throne, 3
+     * next to it, and 0 elsewhere, where two on opposite sides suffice.
+     */
+    private static final int[] KING_GUARDS = new int[NUM_SQUARES];
+
+    static {
+        for (int i = 0; i < NUM_SQUARES; i += 1) {
+            for (int d = 0; d < 4; d += 1) {
+                Square partner = sq(i).rookMove(d, 2);
+                PARTNER[i][d] = partner == null ? -1 : partner.index();
+                VICTIM[i][d] = partner == null ? -1
+                        : sq(i).rookMove(d, 1).index();
+            }
         }
-        if (row > 1) {
-            rookSquares.add(square.rookMove(2, step));
+        HOSTILE[THRONE.index()] = true;
+        KING_GUARDS[THRONE.index()] = 4;
+        for (Square s : new Square[] {NTHRONE, ETHRONE, STHRONE, WTHRONE}) {
+            KING_GUARDS[s.index()] = 3;
         }
-        return rookSquares;
     }
 
+    /**
+     * The Zobrist hash of the current position (see key()).
+     */
+    private long _key;
+
+    /**
+     * The keys of the positions reached at the start of each move since
+     * the initial position or the last clearUndo, used to detect
+     * repetitions.  Shared with copies of this board (see History).
+     */
+    private final History _history = new History();
+
+    /**
+     * All Pieces, indexed by ordinal.
+     */
+    private static final Piece[] PIECES = Piece.values();
+
+    /**
+     * The undo stack, one record per move made and not yet undone, shared
+     * with copies of this board like _history.  Bits 0-13 of a record
+     * hold the move's from and to indices, packed as FROM << 7 | TO.
+     * Starting at CAPTURES_SHIFT, bits 2d and 2d + 1 hold the ordinal of
+     * the piece captured in direction d from TO (or 0).  Starting at
+     * FLAGS_SHIFT come the ordinals of the turn (bits 0-1) and the winner
+     * (bits 2-3, 0 if none) and the repetition flag (bit 4) from before
+     * the move.
+     */
+    private final History _undo = new History();
+
+    /**
+     * Layout of an undo record (see _undo).
+     */
+    private static final int
+            MOVE_MASK = (1 << 14) - 1,
+            CAPTURES_SHIFT = 14,
+            FLAGS_SHIFT = 22;
+
     /**
      * Check if the game is over.
      *
      * @return game over return true, else false.
      */
     boolean checkGameOver() {
-        Square king = kingPosition();
-        return king == null || king.isEdge();
+        long kingLow = _low[KING_BITS], kingHigh = _high[KING_BITS];
+        return (kingLow == 0 && kingHigh == 0)
+                || (kingLow & EDGE_LOW) != 0 || (kingHigh & EDGE_HIGH) != 0;
     }
 
     /**
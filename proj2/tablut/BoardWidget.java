@@ -109,22 +109,24 @@ class BoardWidget extends Pad {
     }
 
     @Override
-    public synchronized void paintComponent(Graphics2D g) {
+    public void paintComponent(Graphics2D g) {
+        Board board = _board;
         drawGrid(g);
-        Square.SQUARE_LIST.iterator().forEachRemaining(s -> drawPiece(g, s));
+        Square.SQUARE_LIST.iterator().forEachRemaining(s ->
+                drawPiece(g, board, s));
     }
 
     /**
-     * Draw the contents of S on G.
+     * Draw the contents of S in BOARD on G.
      */
-    private void drawPiece(Graphics2D g, Square s) {
+    private void drawPiece(Graphics2D g, Board board, Square s) {
         if (_preClickedSquare == s) {
             g.setColor(CLICKED_SQUARE_COLOR);
             g.fillRect(cx(s) + OFFSET, cy(s) + OFFSET,
                     SQUARE_SIDE - OFFSET, SQUARE_SIDE - OFFSET);
         }
 
-        if (_board.get(s) == Piece.KING) {
+        if (board.get(s) == Piece.KING) {
             g.setColor(WHITE_COLOR);
             g.fillOval(cx(s) + OFFSET * 2, cy(s) + OFFSET * 2,
                     SQUARE_SIDE - OFFSET * 4, SQUARE_SIDE - OFFSET * 4);
@@ -132,12 +134,12 @@ class BoardWidget extends Pad {
             g.setFont(KING_FONT);
             g.drawString("K", cx(s) + OFFSET * 4,
                     cy(s.row() - 1) - OFFSET * 4);
-        } else if (_board.get(s) == Piece.WHITE) {
+        } else if (board.get(s) == Piece.WHITE) {
             g.setColor(WHITE_COLOR);
             g.fillOval(cx(s) + OFFSET * 2, cy(s) + OFFSET * 2,
                     SQUARE_SIDE - OFFSET * 4,
                     SQUARE_SIDE - OFFSET * 4);
-        } else if (_board.get(s) == Piece.BLACK) {
+        } else if (board.get(s) == Piece.BLACK) {
             g.setColor(BLACK_COLOR);
             g.fillOval(cx(s) + OFFSET * 2, cy(s) + OFFSET * 2,
                     SQUARE_SIDE - OFFSET * 4, SQUARE_SIDE - OFFSET * 4);
@@ -148,16 +150,17 @@ class BoardWidget extends Pad {
      * Handle a click on S.
      */
     private void click(Square s) {
+        Board board = _board;
         if (_acceptingMoves) {
             if (_preClickedSquare == null) {
-                if (_board.turn().side() != _board.get(s).side()) {
+                if (board.turn().side() != board.get(s).side()) {
                     JOptionPane.showMessageDialog(null,
                             "The click is illegal!", "ERROR",
                             JOptionPane.ERROR_MESSAGE);
                 } else {
                     _preClickedSquare = s;
                 }
-            } else if (!_board.isLegal(_preClickedSquare, s)) {
+            } else if (!board.isLegal(_preClickedSquare, s)) {
                 JOptionPane.showMessageDialog(null,
                         "The move is illegal!", "ERROR",
                         JOptionPane.ERROR_MESSAGE);
@@ -189,10 +192,11 @@ class BoardWidget extends Pad {
     }
 
     /**
-     * Revise the displayed board according to BOARD.
+     * Revise the displayed board according to BOARD, of which I keep a
+     * snapshot, so that BOARD may change as soon as this returns.
      */
-    synchronized void update(Board board) {
-        _board.copy(board);
+    void update(Board board) {
+        _board = new Board(board);
         repaint();
     }
 
@@ -243,14 +247,16 @@ class BoardWidget extends Pad {
      */
     private ArrayBlockingQueue<String> _commands;
     /**
-     * Board being displayed.
+     * A snapshot of the board being displayed.  Each update publishes a
+     * new one, and none is modified once published, so that painting
+     * and clicks on the event thread never wait for the game.
      */
-    private final Board _board = new Board();
+    private volatile Board _board = new Board();
 
     /**
-     * True iff accepting moves from user.
+     * True iff accepting moves from user.  Set by the game's thread.
      */
-    private boolean _acceptingMoves;
+    private volatile boolean _acceptingMoves;
 
     /**
      * The previous clicked square.
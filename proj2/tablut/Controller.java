@@ -3,6 +3,8 @@ package tablut;
 import java.io.PrintStream;
 import java.util.Random;
 import java.util.Scanner;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.regex.Pattern;
 import java.util.regex.Matcher;
 import java.util.function.Consumer;
@@ -15,7 +17,13 @@ import static tablut.Piece.BLACK;
 import static tablut.Square.SQ;
 import static tablut.Utils.error;
 
-/** The input/output and GUI controller for play of Tablut.
+/** The input/output and GUI controller for play of Tablut.  A Controller,
+ *  with its Board and Players, should be used by one thread at a time,
+ *  but the package keeps no other mutable state, so that different
+ *  Controllers may run independent games on different threads at once.
+ *  (The exception is an automated Player choosing a move in the
+ *  background, which may log comments and report errors while its
+ *  Controller waits for the move.)
  *  @author Yunshun Zhong
  *
  */
@@ -56,9 +64,9 @@ final class Controller {
             String command;
             if (_winner == null) {
                 if (_board.turn() == WHITE) {
-                    command = _white.myMove();
+                    command = nextMove(_white);
                 } else {
-                    command = _black.myMove();
+                    command = nextMove(_black);
                 }
             } else {
                 command = _nonPlayer.myMove();
@@ -75,17 +83,62 @@ final class Controller {
                 }
             }
         }
+        _white.idle();
+        _black.idle();
         if (_logFile != null) {
             _logFile.close();
         }
     }
 
+    /** Return the next move or command of PLAYER, the player to move.
+     *  When PLAYER is automated and manual players may give commands at
+     *  any time (as from a GUI's menus), PLAYER chooses its move in the
+     *  background, and a command arriving meanwhile cancels the choice
+     *  and is returned instead, so that long searches do not delay
+     *  commands such as undo. */
+    private String nextMove(Player player) {
+        if (player.isManual() || !_nonPlayer.takesCommandsAnytime()) {
+            return player.myMove();
+        }
+        Future<String> move = player.startMove();
+        try {
+            while (true) {
+                String command = _nonPlayer.pollCommand(POLL_INTERVAL);
+                if (command != null) {
+                    move.cancel(true);
+                    return command;
+                }
+                if (move.isDone()) {
+                    return move.get();
+                }
+            }
+        } catch (InterruptedException excp) {
+            move.cancel(true);
+            throw new Error("unexpected interrupt");
+        } catch (ExecutionException excp) {
+            throw new IllegalStateException(excp.getCause());
+        }
+    }
+
     /** Return the current board.  The value returned should not be
      *  modified. */
     Board board() {
         return _board;
     }
 
+    /** Return the number of milliseconds automated players may spend
+     *  choosing a move, or 0 if they should instead search to a depth of
+     *  their own choosing. */
+    long moveTime() {
+        return _moveTime;
+    }
+
+    /** Allow automated players MILLIS milliseconds per move, or, if
+     *  MILLIS is 0, have them search to a depth of their own choosing. */
+    void setMoveTime(long millis) {
+        _moveTime = millis;
+    }
+
     /** Return a random integer in the range 0 inclusive to U, exclusive.
      *  Available for use by AIs that use random selections in some cases.
      *  Once setRandomSeed is called with a particular value, this method
@@ -96,9 +149,18 @@ final class Controller {
 
     /** Re-seed the pseudo-random number generator (PRNG) that supplies randInt
      *  with the value SEED. Identical seeds produce identical sequences.
-     *  Initially, the PRNG is randomly seeded. */
+     *  Initially, the PRNG is randomly seeded. SEED also becomes the value
+     *  of seed(). */
     void setSeed(long seed) {
         _randGen.setSeed(seed);
+        _seed = seed;
+    }
+
+    /** Return the last seed passed to setSeed, or a random value if there
+     *  has been none.  AIs derive the noise in their evaluations from it,
+     *  so that with the same seed they choose the same moves. */
+    long seed() {
+        return _seed;
     }
 
     /** Return the next line of input, or null if there is no more. First
@@ -151,19 +213,20 @@ final class Controller {
     }
 
     /** A Command is pair (<pattern>, <processor>), where <pattern> is a
-     *  Matcher that matches instances of a particular command, and
+     *  Pattern that matches instances of a particular command, and
      *  <processor> is a functional object whose .accept method takes a
-     *  successfully matched Matcher and performs some operation. */
+     *  successfully matched Matcher and performs some operation.  A
+     *  Command is immutable; each command line gets its own Matchers. */
     private static class Command {
         /** A new Command that matches PATN (a regular expression) and uses
          *  PROCESSOR to process commands that match the pattern. */
         Command(String patn, Consumer<Matcher> processor) {
-            _matcher = Pattern.compile(patn).matcher("");
+            _pattern = Pattern.compile(patn);
             _processor = processor;
         }
 
-        /** A Matcher matching my pattern. */
-        protected final Matcher _matcher;
+        /** The Pattern matching my command. */
+        protected final Pattern _pattern;
         /** The function object that implements my command. */
         protected final Consumer<Matcher> _processor;
     }
@@ -179,12 +242,15 @@ final class Controller {
         new Command("manual\\s+(white|black)$", this::doManual),
         new Command("auto\\s+(white|black)$", this::doAuto),
         new Command("limit\\s+(\\d+)$", this::doLimit),
+        new Command("time\\s+(\\d+)$", this::doTime),
         new Command("toggle\\s+" + SQ + "$", this::doToggle),
+        new Command("perft\\s+(\\d+)(\\s+divide)?(\\s+parallel)?$",
+                    this::doPerft),
         new Command(Move.MOVE_PATTERN.pattern(), this::doMove)
     };
 
-    /** A Matcher whose Pattern matches comments. */
-    private static final Matcher COMMENT = Pattern.compile("#.*").matcher("");
+    /** A Pattern matching comments. */
+    private static final Pattern COMMENT = Pattern.compile("#.*");
 
     /** Check that CMND is one of the valid Tablut commands and execute it, if
      *  so, raising an IllegalArgumentException otherwise. */
@@ -193,16 +259,15 @@ final class Controller {
             _logFile.println(cmnd);
             _logFile.flush();
         }
-        COMMENT.reset(cmnd);
-        cmnd = COMMENT.replaceFirst("").trim().toLowerCase();
+        cmnd = COMMENT.matcher(cmnd).replaceFirst("").trim().toLowerCase();
 
         if (cmnd.isEmpty()) {
             return;
         }
         for (Command parser : _commands) {
-            parser._matcher.reset(cmnd);
-            if (parser._matcher.matches()) {
-                parser._processor.accept(parser._matcher);
+            Matcher matcher = parser._pattern.matcher(cmnd);
+            if (matcher.matches()) {
+                parser._processor.accept(matcher);
                 return;
             }
         }
@@ -219,9 +284,11 @@ final class Controller {
     private void doManual(Matcher color) {
         switch (color.group(1)) {
         case "black":
+            _black.idle();
             _black = _manualPlayerTemplate.create(BLACK, this);
             break;
         case "white":
+            _white.idle();
             _white = _manualPlayerTemplate.create(WHITE, this);
             break;
         default:
@@ -234,9 +301,11 @@ final class Controller {
     private void doAuto(Matcher color) {
         switch (color.group(1)) {
         case "black":
+            _black.idle();
             _black = _autoPlayerTemplate.create(BLACK, this);
             break;
         case "white":
+            _white.idle();
             _white = _autoPlayerTemplate.create(WHITE, this);
             break;
         default:
@@ -285,12 +354,42 @@ final class Controller {
         }
     }
 
+    /** Command "time N" where N, the first captured group of MAT, is the
+     *  number of milliseconds automated players may spend on a move (0 for
+     *  a fixed search depth). */
+    private void doTime(Matcher mat) {
+        try {
+            setMoveTime(Long.parseLong(mat.group(1)));
+        } catch (NumberFormatException excp) {
+            throw error("number too large");
+        }
+    }
+
+    /** Command "perft N [divide] [parallel]", matched in MAT: print the
+     *  number of positions N moves below the current one (see Perft),
+     *  divided by first move if "divide" is given, and counted on all
+     *  processors if "parallel" is. */
+    private void doPerft(Matcher mat) {
+        int depth;
+        try {
+            depth = Integer.parseInt(mat.group(1));
+        } catch (NumberFormatException excp) {
+            throw error("number too large");
+        }
+        int threads = mat.group(3) == null ? 1
+            : Runtime.getRuntime().availableProcessors();
+        Perft.report(System.out, _board, depth, mat.group(2) != null,
+                     threads);
+    }
+
     /** Execute a move command matched in MAT. */
     private void doMove(Matcher mat) {
         _board.makeMove(Move.mv(mat.group(0)));
         if (_winner == null) {
             _winner = _board.winner();
             if (_winner != null) {
+                _white.idle();
+                _black.idle();
                 _view.update(this);
                 _reporter.reportNote("%s wins.", _winner.toName());
             }
@@ -313,6 +412,10 @@ final class Controller {
         }
     }
 
+    /** The time in milliseconds between checks for commands while an
+     *  automated player chooses a move in the background. */
+    private static final long POLL_INTERVAL = 20;
+
     /** The board. */
     private Board _board = new Board();
 
@@ -325,9 +428,16 @@ final class Controller {
     /** The object that is displaying the current game. */
     private View _view;
 
+    /** Time allowed for each automated move in milliseconds, or 0 for no
+     *  limit. */
+    private long _moveTime;
+
     /** My pseudo-random number generator. */
     private Random _randGen = new Random();
 
+    /** The value of seed(). */
+    private long _seed = _randGen.nextLong();
+
     /** Log file, or null if absent. */
     private PrintStream _logFile;
 
@@ -0,0 +1,326 @@
+package tablut;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.util.List;
+import java.util.Scanner;
+
+/**
+ * A line-based protocol for driving the AI from other programs, such as
+ * analysis scripts and tournament managers, modelled on the protocols of
+ * chess engines.  Each input line is one command:
+ * <pre>
+ *   tablut                  identify; replies "id name ..." and "tablutok"
+ *   isready                 replies "readyok" (at once, even when searching)
+ *   newgame                 forget the results of earlier searches
+ *   seed N                  derive evaluation noise from N (0 initially),
+ *                           forgetting earlier results if N is new
+ *   position initial [moves M1 M2 ...]
+ *   position board B [moves M1 M2 ...]
+ *                           set the position: the initial one or the one
+ *                           encoded as B by Board.encodedBoard, followed
+ *                           by moves M1, M2, ... (e.g., "d1-3")
+ *   go [depth D] [nodes N] [movetime T]
+ *                           search the position in the background, to
+ *                           depth D, for about N positions, or for about T
+ *                           milliseconds (until stop if none is given)
+ *   stop                    end the search at once
+ *   quit                    end the search and exit
+ * </pre>
+ * At the end of the input, the engine lets the search in progress, if
+ * any, finish before exiting, so that a script may end with a go.
+ * While searching, the engine prints a line "info depth D score S nodes N
+ * nps R time T pv M1 M2 ..." after each iteration, where S is the score
+ * for the side to move and M1 M2 ... the moves expected, and finally
+ * "bestmove M", or "bestmove none" if the game is over or the side to
+ * move has no legal move.  Erroneous commands get the reply "error
+ * MESSAGE".  Only the search runs on another thread; all commands are
+ * handled in order on the thread calling run.
+ *
+ * @author Yunshun Zhong
+ */
+final class Engine {
+
+    /**
+     * An engine reading commands from INPUT and writing replies to
+     * OUTPUT.
+     */
+    Engine(InputStream input, PrintStream output) {
+        _input = new BufferedReader(new InputStreamReader(input));
+        _output = output;
+    }
+
+    /**
+     * Handle commands until quit or the end of the input.
+     */
+    void run() {
+        try {
+            String line;
+            while ((line = _input.readLine()) != null) {
+                line = line.trim();
+                if (line.equals("quit")) {
+                    _searcher.stop();
+                    break;
+                }
+                try {
+                    execute(line);
+                } catch (IllegalArgumentException excp) {
+                    reply("error %s", excp.getMessage());
+                }
+            }
+        } catch (IOException excp) {
+            reply("error %s", excp.getMessage());
+        }
+        awaitSearch();
+    }
+
+    /**
+     * Execute the command LINE, other than quit.
+     */
+    private void execute(String line) {
+        Scanner words = new Scanner(line);
+        if (!words.hasNext()) {
+            return;
+        }
+        String command = words.next();
+        switch (command) {
+        case "tablut":
+            reply("id name Tablut 61B");
+            reply("tablutok");
+            break;
+        case "isready":
+            reply("readyok");
+            break;
+        case "newgame":
+            checkIdle();
+            _table.clear();
+            break;
+        case "seed":
+            checkIdle();
+            long seed = number(words);
+            if (seed != _seed) {
+                _table.clear();
+                _seed = seed;
+            }
+            break;
+        case "position":
+            checkIdle();
+            setPosition(words);
+            break;
+        case "go":
+            checkIdle();
+            go(words);
+            break;
+        case "stop":
+            stopSearch();
+            break;
+        default:
+            throw Utils.error("unknown command: %s", command);
+        }
+        if (words.hasNext()) {
+            throw Utils.error("unexpected input: %s", words.nextLine());
+        }
+    }
+
+    /**
+     * Set up the position described by the rest of the position command
+     * in WORDS.
+     */
+    private void setPosition(Scanner words) {
+        Board board = new Board();
+        String kind = words.hasNext() ? words.next() : "";
+        if (kind.equals("board") && words.hasNext()) {
+            board.init(words.next());
+        } else if (!kind.equals("initial")) {
+            throw Utils.error("bad position");
+        }
+        if (words.hasNext("moves")) {
+            words.next();
+            while (words.hasNext()) {
+                String text = words.next();
+                Move move = Move.mv(text);
+                if (move == null || board.winner() != null
+                        || !board.isLegal(move)) {
+                    throw Utils.error("illegal move: %s", text);
+                }
+                board.makeMove(move);
+            }
+        }
+        _board = board;
+    }
+
+    /**
+     * Start searching the current position with the limits given by the
+     * rest of the go command in WORDS.
+     */
+    private void go(Scanner words) {
+        int depth = Searcher.MAX_DEPTH;
+        long nodes = Long.MAX_VALUE, time = 0;
+        while (words.hasNext()) {
+            switch (words.next()) {
+            case "depth":
+                depth = (int) Math.min(number(words), Searcher.MAX_DEPTH);
+                break;
+            case "nodes":
+                nodes = number(words);
+                break;
+            case "movetime":
+                time = number(words);
+                break;
+            default:
+                throw Utils.error("bad search limit");
+            }
+        }
+        if (depth < 1) {
+            throw Utils.error("bad depth");
+        }
+        List<Move> moves = _board.legalMoves(_board.turn());
+        if (_board.winner() != null || moves.isEmpty()) {
+            reply("bestmove none");
+            return;
+        }
+
+        _table.newSearch();
+        _searcher.setPosition(_board, _seed);
+        _searcher.setNodeLimit(nodes);
+        long start = System.currentTimeMillis();
+        _searcher.setListener(s -> info(s, start));
+        int lastDepth = depth;
+        long budget = time;
+        Move fallback = moves.get(0);
+        _search = new Thread(() -> {
+            Move best = _searcher.search(1, lastDepth, start, budget);
+            if (best == null) {
+                best = fallback;
+            }
+            reply("bestmove %s", best);
+        });
+        _search.start();
+    }
+
+    /**
+     * Report on the iteration just completed by SEARCHER, which started
+     * at time START (as for System.currentTimeMillis).
+     */
+    private void info(Searcher searcher, long start) {
+        long time = System.currentTimeMillis() - start;
+        StringBuilder pv = new StringBuilder();
+        List<Move> line = searcher.principalVariation();
+        for (Move move : line) {
+            pv.append(' ').append(move);
+        }
+        reply("info depth %d score %d nodes %d nps %d time %d pv%s",
+              searcher.depth(), searcher.score(), searcher.nodes(),
+              searcher.nodes() * 1000 / Math.max(time, 1), time, pv);
+    }
+
+    /**
+     * Stop the search in progress, if any, and wait for it to print its
+     * best move.
+     */
+    private void stopSearch() {
+        if (_search != null) {
+            _searcher.stop();
+            awaitSearch();
+        }
+    }
+
+    /**
+     * Wait for the search in progress, if any, to print its best move.
+     */
+    private void awaitSearch() {
+        if (_search != null) {
+            while (true) {
+                try {
+                    _search.join();
+                    break;
+                } catch (InterruptedException excp) {
+                    /* Keep waiting. */
+                }
+            }
+            _search = null;
+        }
+    }
+
+    /**
+     * Check that no search is in progress, finishing off one that has
+     * ended by itself.
+     */
+    private void checkIdle() {
+        if (_search != null && _search.isAlive()) {
+            throw Utils.error("searching");
+        }
+        _search = null;
+    }
+
+    /**
+     * Return the next word of WORDS as a non-negative number.
+     */
+    private static long number(Scanner words) {
+        if (!words.hasNextLong()) {
+            throw Utils.error("number expected");
+        }
+        long value = words.nextLong();
+        if (value < 0) {
+            throw Utils.error("number expected");
+        }
+        return value;
+    }
+
+    /**
+     * Print the reply given by FORMAT and ARGS, as for String.format, on
+     * a line of its own.  May be called from any thread.
+     */
+    private void reply(String format, Object... args) {
+        synchronized (_output) {
+            _output.printf(format + "%n", args);
+            _output.flush();
+        }
+    }
+
+    /**
+     * The size (as a power of 2) of the transposition table.
+     */
+    private static final int TABLE_BITS = 20;
+
+    /**
+     * The source of commands.
+     */
+    private final BufferedReader _input;
+
+    /**
+     * The destination of replies.
+     */
+    private final PrintStream _output;
+
+    /**
+     * Results of searches, kept from one search to the next until
+     * newgame.
+     */
+    private final TranspositionTable _table =
+            new TranspositionTable(TABLE_BITS);
+
+    /**
+     * Searches the current position.
+     */
+    private final Searcher _searcher = new Searcher(_table);
+
+    /**
+     * The current position.  Replaced, never modified, by position, so
+     * that the search thread may read it.
+     */
+    private Board _board = new Board();
+
+    /**
+     * The seed for evaluation noise.
+     */
+    private long _seed;
+
+    /**
+     * The thread running the current search, or null if none.
+     */
+    private Thread _search;
+}
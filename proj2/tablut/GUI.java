@@ -5,6 +5,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.StringWriter;
 import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import javax.swing.JEditorPane;
 import javax.swing.JFrame;
 import javax.swing.JScrollPane;
@@ -95,6 +96,19 @@ class GUI extends TopLevel implements View, Reporter {
         }
     }
 
+    /**
+     * Return the next command from our widget or menus, waiting for at
+     * most MILLIS milliseconds, or null if there is none by then.  Moves
+     * are not collected from the board meanwhile.
+     */
+    String pollCommand(long millis) {
+        try {
+            return _pendingCommands.poll(millis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException excp) {
+            throw new Error("unexpected interrupt");
+        }
+    }
+
     @Override
     public void update(Controller controller) {
         Board board = controller.board();
@@ -145,7 +159,8 @@ class GUI extends TopLevel implements View, Reporter {
             return;
         }
         JScrollPane scroller = new JScrollPane(dispPane);
-        scroller.setVerticalScrollBarPolicy(scroller.VERTICAL_SCROLLBAR_ALWAYS);
+        scroller.setVerticalScrollBarPolicy(
+                JScrollPane.VERTICAL_SCROLLBAR_ALWAYS);
         scroller.setPreferredSize(TEXT_BOX_SIZE);
         frame.add(scroller);
         frame.pack();
@@ -48,6 +48,16 @@ class GUIPlayer extends Player implements Reporter {
         }
     }
 
+    @Override
+    boolean takesCommandsAnytime() {
+        return true;
+    }
+
+    @Override
+    String pollCommand(long millis) {
+        return _gui.pollCommand(millis);
+    }
+
     @Override
     public void reportError(String fmt, Object... args) {
         _gui.reportError(fmt, args);
@@ -0,0 +1,207 @@
+package tablut;
+
+/**
+ * A stack of longs that can be copied in constant time, used by Board to
+ * record the positions and moves of a game.  The entries nearest the top
+ * are held in an array private to the stack; those below it lie in a
+ * chain of immutable segments, which copies of the stack share.  Copying
+ * a stack hands its private array over to a new segment, so that neither
+ * the copy nor the original ever needs to duplicate its entries, however
+ * long the game.  Popping below the private entries steps back along the
+ * chain without changing it, and pushing always writes to the private
+ * array.
+ * <p>
+ * Like a Board, a History must be confined to one thread at a time, and
+ * copying one counts as modifying the original.
+ *
+ * @author Yunshun Zhong
+ */
+final class History {
+
+    /**
+     * An empty stack.
+     */
+    History() {
+        _top = NO_ENTRIES;
+    }
+
+    /**
+     * Make me a copy of MODEL, sharing its entries.
+     */
+    void copy(History model) {
+        if (model == this) {
+            return;
+        }
+        model.freeze();
+        _segment = model._segment;
+        _segmentLen = model._segmentLen;
+        _top = NO_ENTRIES;
+        _topLen = 0;
+        _size = model._size;
+    }
+
+    /**
+     * Remove all entries.
+     */
+    void clear() {
+        _segment = null;
+        _segmentLen = 0;
+        _topLen = 0;
+        _size = 0;
+    }
+
+    /**
+     * Return the number of entries.
+     */
+    int size() {
+        return _size;
+    }
+
+    /**
+     * Push VALUE.
+     */
+    void push(long value) {
+        if (_topLen == _top.length) {
+            freeze();
+            _top = new long[CAPACITY];
+        }
+        _top[_topLen] = value;
+        _topLen += 1;
+        _size += 1;
+    }
+
+    /**
+     * Remove and return the top entry.  Assumes there is one.
+     */
+    long pop() {
+        assert _size > 0;
+        _size -= 1;
+        if (_topLen > 0) {
+            _topLen -= 1;
+            return _top[_topLen];
+        }
+        while (_segmentLen == 0) {
+            _segment = _segment.prev;
+            _segmentLen = _segment.length;
+        }
+        _segmentLen -= 1;
+        return _segment.items[_segmentLen];
+    }
+
+    /**
+     * Return the entry DEPTH places below the top (0 for the top entry).
+     * Assumes 0 <= DEPTH < size().  Takes time proportional to the number
+     * of segments passed, so is meant for entries near the top.
+     */
+    long peek(int depth) {
+        assert 0 <= depth && depth < _size;
+        if (depth < _topLen) {
+            return _top[_topLen - 1 - depth];
+        }
+        depth -= _topLen;
+        Segment segment = _segment;
+        int len = _segmentLen;
+        while (depth >= len) {
+            depth -= len;
+            segment = segment.prev;
+            len = segment.length;
+        }
+        return segment.items[len - 1 - depth];
+    }
+
+    /**
+     * Replace the top entry with VALUE.  Assumes there is one.
+     */
+    void setTop(long value) {
+        pop();
+        push(value);
+    }
+
+    /**
+     * Move my private entries to a new segment on top of those I share,
+     * so that I no longer own any array.
+     */
+    private void freeze() {
+        if (_topLen == 0) {
+            return;
+        }
+        Segment below = _segment;
+        if (below != null && _segmentLen < below.length) {
+            below = new Segment(below.items, _segmentLen, below.prev);
+        }
+        _segment = new Segment(_top, _topLen, below);
+        _segmentLen = _topLen;
+        _top = NO_ENTRIES;
+        _topLen = 0;
+    }
+
+    /**
+     * An immutable run of entries: ITEMS[0 .. LENGTH-1], on top of those
+     * of PREV (if not null).  The entries of ITEMS beyond LENGTH may be
+     * garbage.
+     */
+    private static final class Segment {
+
+        /**
+         * The segment holding ITEMS[0 .. LENGTH-1] on top of PREV.
+         */
+        Segment(long[] items, int length, Segment prev) {
+            this.items = items;
+            this.length = length;
+            this.prev = prev;
+        }
+
+        /**
+         * The entries.
+         */
+        final long[] items;
+
+        /**
+         * The number of entries.
+         */
+        final int length;
+
+        /**
+         * The segment below, or null.
+         */
+        final Segment prev;
+    }
+
+    /**
+     * The size of each new private array.
+     */
+    private static final int CAPACITY = 64;
+
+    /**
+     * The private array of a stack that has none.
+     */
+    private static final long[] NO_ENTRIES = new long[0];
+
+    /**
+     * The topmost shared segment, or null if there is none.
+     */
+    private Segment _segment;
+
+    /**
+     * The number of entries of _segment that are entries of mine.  May be
+     * 0 (when all of them have been popped) and less than
+     * _segment.length.
+     */
+    private int _segmentLen;
+
+    /**
+     * My private entries: _top[0 .. _topLen-1] lie, in order, above the
+     * first _segmentLen entries of _segment.
+     */
+    private long[] _top;
+
+    /**
+     * The number of private entries.
+     */
+    private int _topLen;
+
+    /**
+     * The total number of entries.
+     */
+    private int _size;
+}
@@ -18,16 +18,28 @@ import static tablut.Utils.error;
 public class Main {
 
     /**
-     * The main program.  ARGS may contain the option --display.
+     * The main program.  ARGS may contain the option --display,
+     * --threads=N to have the AI search on N threads, --table-bits=B to
+     * give it a transposition table of 2**B entries (2**20 by default),
+     * --no-null-move and --no-reductions to turn off those kinds of
+     * forward pruning in the AI's search, and --ponder to have the AI
+     * search on its opponent's time when playing a manual player.  With
+     * --engine, it instead speaks the line-based protocol of Engine on
+     * its input and output.
      */
     public static void main(String... args) {
 
         CommandArgs options =
-                new CommandArgs("--display --testing --strict "
-                        + "--log={0,1} --={0,2}", args);
+                new CommandArgs("--display --testing --strict --engine "
+                        + "--log={0,1} --threads={0,1} --table-bits={0,1} "
+                        + "--no-null-move "
+                        + "--no-reductions --ponder --={0,2}", args);
         if (!options.ok()) {
             System.err.println("Usage: java tablut.Main [--display]"
-                    + " [--log=FILE] [--strict] [INPUT [OUTPUT]]");
+                    + " [--log=FILE] [--strict] [--threads=N]"
+                    + " [--table-bits=B]"
+                    + " [--no-null-move] [--no-reductions] [--ponder]"
+                    + " [--engine] [INPUT [OUTPUT]]");
             System.exit(1);
         }
 
@@ -52,6 +64,11 @@ public class Main {
             }
         }
 
+        if (options.contains("--engine")) {
+            new Engine(System.in, System.out).run();
+            System.exit(0);
+        }
+
         Controller control = getController(options);
         System.out.println("Tablut 61B, staff version 1.0");
 
@@ -102,7 +119,35 @@ public class Main {
             }
         }
 
+        int threads = 1;
+        if (options.contains("--threads")) {
+            try {
+                threads = Integer.parseInt(options.getFirst("--threads"));
+            } catch (NumberFormatException excp) {
+                throw error("Bad number of threads");
+            }
+        }
+
+        int tableBits = AI.TABLE_BITS;
+        if (options.contains("--table-bits")) {
+            try {
+                tableBits = Integer.parseInt(options.getFirst("--table-bits"));
+            } catch (NumberFormatException excp) {
+                throw error("Bad table size");
+            }
+        }
+
+        int features = Searcher.ALL_FEATURES;
+        if (options.contains("--no-null-move")) {
+            features &= ~Searcher.NULL_MOVE;
+        }
+        if (options.contains("--no-reductions")) {
+            features &= ~Searcher.REDUCTIONS;
+        }
+
         return new Controller(view, log, reporter, manualPlayer,
-                new AI(), options.contains("--strict"));
+                new AI(threads, features, options.contains("--ponder"),
+                       tableBits),
+                options.contains("--strict"));
     }
 }
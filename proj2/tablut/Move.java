@@ -1,7 +1,10 @@
 package tablut;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -53,25 +56,30 @@ final class Move {
             return null;
         }
 
-        if (MOVES[from.index()][to.index()] == null) {
-            MOVES[from.index()][to.index()] = new Move(from, to);
-        }
         return MOVES[from.index()][to.index()];
     }
 
+    /**
+     * Return the Move whose packed form (see packed()) is PACKED.
+     */
+    static Move mv(int packed) {
+        return mv(sq(packed >>> 7), sq(packed & 0x7f));
+    }
+
     /**
      * Return the Move denoted by STR, if STR denotes a move with
-     * valid syntax, and null otherwise.
+     * valid syntax, and null otherwise.  May be called from several
+     * threads at once.
      */
     static Move mv(String str) {
-        _moveMatcher.reset(str);
-        if (_moveMatcher.matches()) {
-            Square from = sq(_moveMatcher.group(1));
+        Matcher moveMatcher = MOVE_PATTERN.matcher(str);
+        if (moveMatcher.matches()) {
+            Square from = sq(moveMatcher.group(1));
             Square to;
-            if (_moveMatcher.group(5) == null) {
-                to = sq(_moveMatcher.group(4), _moveMatcher.group(3));
+            if (moveMatcher.group(5) == null) {
+                to = sq(moveMatcher.group(4), moveMatcher.group(3));
             } else {
-                to = sq(_moveMatcher.group(2), _moveMatcher.group(5));
+                to = sq(moveMatcher.group(2), moveMatcher.group(5));
             }
             return mv(from, to);
         }
@@ -82,8 +90,15 @@ final class Move {
      * Return true iff STR has the right format for a Move.
      */
     static boolean isGrammaticalMove(String str) {
-        _moveMatcher.reset(str);
-        return _moveMatcher.matches();
+        return MOVE_PATTERN.matcher(str).matches();
+    }
+
+    /**
+     * Return my packed form, FROM << 7 | TO, where FROM and TO are the
+     * indices of my squares.  It is never 0.
+     */
+    int packed() {
+        return _from.index() << 7 | _to.index();
     }
 
     @Override
@@ -92,22 +107,33 @@ final class Move {
     }
 
     /**
-     * A convenience class to represent mutable lists of Moves.  This
-     * class may safely be used as the element type in an array.
+     * A convenience class to represent immutable lists of Moves, which
+     * may be shared freely between threads.  This class may safely be
+     * used as the element type in an array.
      */
-    static class MoveList extends ArrayList<Move> {
+    static final class MoveList extends AbstractList<Move>
+            implements RandomAccess {
         /**
-         * An initially empty list.
+         * A list of the moves in INIT, in order.
          */
-        MoveList() {
+        MoveList(Collection<Move> init) {
+            _moves = init.toArray(new Move[init.size()]);
+        }
+
+        @Override
+        public Move get(int k) {
+            return _moves[k];
+        }
+
+        @Override
+        public int size() {
+            return _moves.length;
         }
 
         /**
-         * A list initialize to INIT.
+         * My contents.
          */
-        MoveList(Collection<Move> init) {
-            super(init);
-        }
+        private final Move[] _moves;
     }
 
     /**
@@ -134,7 +160,8 @@ final class Move {
     }
 
     /**
-     * The cache of all Moves created.
+     * The cache of all Moves, filled in once when this class is loaded and
+     * thereafter only read, so that mv may be called from any thread.
      */
     private static final Move[][] MOVES = new Move[NUM_SQUARES][NUM_SQUARES];
 
@@ -150,10 +177,12 @@ final class Move {
         for (Square sq0 : SQUARE_LIST) {
             int r0 = sq0.row(), c0 = sq0.col(), i0 = sq0.index();
             for (int d = 0; d < 4; d += 1) {
-                MoveList L = ROOK_MOVES[i0][d] = new MoveList();
+                List<Move> L = new ArrayList<>();
                 for (Square sq1 : ROOK_SQUARES[i0][d]) {
-                    L.add(mv(sq0, sq1));
+                    MOVES[i0][sq1.index()] = new Move(sq0, sq1);
+                    L.add(MOVES[i0][sq1.index()]);
                 }
+                ROOK_MOVES[i0][d] = new MoveList(L);
             }
         }
     }
@@ -166,10 +195,5 @@ final class Move {
     /**
      * The printed form of this Move.
      */
-    private String _str;
-
-    /**
-     * A utility Matcher for moves, using MOVE_PATTERN.
-     */
-    private static Matcher _moveMatcher = MOVE_PATTERN.matcher("");
+    private final String _str;
 }
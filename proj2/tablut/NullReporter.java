@@ -0,0 +1,20 @@
+package tablut;
+
+/** A Reporter that discards all reports, for games played without a
+ *  user, as by Tournament.
+ *  @author Yunshun Zhong
+ */
+class NullReporter implements Reporter {
+
+    @Override
+    public void reportError(String format, Object... args) {
+    }
+
+    @Override
+    public void reportNote(String format, Object... args) {
+    }
+
+    @Override
+    public void reportMove(Move move) {
+    }
+}
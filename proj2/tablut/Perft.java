@@ -0,0 +1,219 @@
+package tablut;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import ucb.util.CommandArgs;
+
+import static tablut.Board.MAX_MOVES;
+
+/**
+ * Move-path enumeration ("perft"): counting the positions reached by all
+ * sequences of legal moves of a given length, to check the correctness
+ * and measure the speed of Board's move generation and makeMove.  A
+ * position in which the game is over has no moves; otherwise, the moves
+ * are those of Board.generateMoves for the side to move.  Positions at
+ * depth 1 are counted without making the moves that reach them.
+ * <p>
+ * Perft counts may be divided by first move and computed in parallel,
+ * with one fork/join task per first move.  Available from the "perft"
+ * command of Controller, and standalone through main.
+ *
+ * @author Yunshun Zhong
+ */
+final class Perft {
+
+    /**
+     * A counter for the positions below a copy of BOARD.
+     */
+    Perft(Board board) {
+        _board = new Board(board);
+    }
+
+    /**
+     * Return the number of positions DEPTH moves below my board.
+     */
+    long count(int depth) {
+        if (_moves.length < depth) {
+            _moves = new int[depth][MAX_MOVES];
+        }
+        return count(depth, 0);
+    }
+
+    /**
+     * Return the number of positions DEPTH moves below my board, using
+     * _moves[PLY .. ] to hold moves.
+     */
+    private long count(int depth, int ply) {
+        if (depth == 0) {
+            return 1;
+        } else if (_board.winner() != null) {
+            return 0;
+        }
+        int[] moves = _moves[ply];
+        int n = _board.generateMoves(_board.turn(), moves);
+        if (depth == 1) {
+            return n;
+        }
+        long total = 0;
+        for (int i = 0; i < n; i += 1) {
+            _board.makeMove(moves[i]);
+            total += count(depth - 1, ply + 1);
+            _board.unmakeMove();
+        }
+        return total;
+    }
+
+    /**
+     * Return the number of positions DEPTH moves below BOARD.
+     */
+    static long perft(Board board, int depth) {
+        return new Perft(board).count(depth);
+    }
+
+    /**
+     * Replace the contents of MOVES with the legal moves from BOARD (none
+     * if the game is over), and return the number of positions DEPTH - 1
+     * moves below each, in the same order.  Uses
+     * THREADS threads, one fork/join task per move, if THREADS > 1.
+     * Assumes DEPTH >= 1.
+     */
+    static long[] divide(Board board, int depth, List<Move> moves,
+                         int threads) {
+        moves.clear();
+        if (board.winner() == null) {
+            moves.addAll(board.legalMoves(board.turn()));
+        }
+        long[] counts = new long[moves.size()];
+        if (threads <= 1) {
+            Perft perft = new Perft(board);
+            for (int i = 0; i < counts.length; i += 1) {
+                perft._board.makeMove(moves.get(i));
+                counts[i] = perft.count(depth - 1);
+                perft._board.unmakeMove();
+            }
+            return counts;
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            Subtree[] tasks = new Subtree[counts.length];
+            for (int i = 0; i < counts.length; i += 1) {
+                tasks[i] = new Subtree(board, moves.get(i), depth - 1);
+                pool.execute(tasks[i]);
+            }
+            for (int i = 0; i < counts.length; i += 1) {
+                counts[i] = tasks[i].join();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        return counts;
+    }
+
+    /**
+     * Print on OUT the number of positions DEPTH moves below BOARD, with
+     * the time taken and the number of positions per second, using
+     * THREADS threads.  If DIVIDE, first print the number below each
+     * legal move.
+     */
+    static void report(PrintStream out, Board board, int depth,
+                       boolean divide, int threads) {
+        long start = System.nanoTime();
+        long total;
+        if (depth == 0) {
+            total = 1;
+        } else {
+            List<Move> moves = new ArrayList<>();
+            long[] counts = divide(board, depth, moves, threads);
+            total = 0;
+            for (int i = 0; i < counts.length; i += 1) {
+                if (divide) {
+                    out.printf("%s: %d%n", moves.get(i), counts[i]);
+                }
+                total += counts[i];
+            }
+        }
+        double seconds = Math.max(System.nanoTime() - start, 1) * 1e-9;
+        out.printf("perft %d: %d positions in %.3f s (%.0f per second)%n",
+                depth, total, seconds, total / seconds);
+    }
+
+    /**
+     * Print the perft count to depth N from the initial position.  ARGS
+     * are N, preceded by the options --divide, to count separately below
+     * each first move, and --threads=T, to count on T threads (the
+     * number of processors by default).
+     */
+    public static void main(String... args) {
+        CommandArgs options =
+                new CommandArgs("--divide --threads={0,1} --={1}", args);
+        int depth = -1, threads = -1;
+        if (options.ok()) {
+            try {
+                depth = Integer.parseInt(options.getFirst("--"));
+                threads = options.contains("--threads")
+                        ? Integer.parseInt(options.getFirst("--threads"))
+                        : Runtime.getRuntime().availableProcessors();
+            } catch (NumberFormatException excp) {
+                depth = -1;
+            }
+        }
+        if (depth < 0 || threads < 1) {
+            System.err.println("Usage: java tablut.Perft [--divide]"
+                    + " [--threads=T] N");
+            System.exit(1);
+        }
+        report(System.out, new Board(), depth,
+                options.contains("--divide"), threads);
+    }
+
+    /**
+     * A fork/join task counting the positions a given number of moves
+     * below the position after a move.
+     */
+    private static final class Subtree extends RecursiveTask<Long> {
+
+        /**
+         * A task counting the positions DEPTH moves below the position
+         * after MOVE on BOARD.
+         */
+        Subtree(Board board, Move move, int depth) {
+            _perft = new Perft(board);
+            _perft._board.makeMove(move);
+            _depth = depth;
+        }
+
+        @Override
+        protected Long compute() {
+            return _perft.count(_depth);
+        }
+
+        /**
+         * Serialization version (tasks are never serialized).
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Counts positions below my position.
+         */
+        private final Perft _perft;
+
+        /**
+         * The number of moves to count below my position.
+         */
+        private final int _depth;
+    }
+
+    /**
+     * The board whose positions are counted.  Restored after counting.
+     */
+    private final Board _board;
+
+    /**
+     * _moves[p] holds the moves generated p moves below _board.
+     */
+    private int[][] _moves = new int[0][];
+}
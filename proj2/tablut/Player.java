@@ -1,5 +1,8 @@
 package tablut;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+
 /**
  * A generic Tablut Player.
  *
@@ -51,6 +54,41 @@ abstract class Player {
      */
     abstract String myMove();
 
+    /**
+     * Start choosing my move, as for myMove, and return a Future for
+     * the result.  Cancelling the Future abandons the choice.  By
+     * default, chooses the move before returning; automated players
+     * override this to search in the background.
+     */
+    Future<String> startMove() {
+        return CompletableFuture.completedFuture(myMove());
+    }
+
+    /**
+     * Stop any work I am doing in the background, such as searching on
+     * my opponent's time, as when I am replaced or the game ends.  By
+     * default, does nothing.
+     */
+    void idle() {
+    }
+
+    /**
+     * Return true iff I may give commands at any time, even while
+     * another player is choosing a move (see pollCommand).
+     */
+    boolean takesCommandsAnytime() {
+        return false;
+    }
+
+    /**
+     * Return a command given to me within about MILLIS milliseconds, or
+     * null if there is none.  Players that do not take commands at any
+     * time return null at once.
+     */
+    String pollCommand(long millis) {
+        return null;
+    }
+
     /**
      * My Controller.
      */
@@ -0,0 +1,813 @@
+package tablut;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static java.lang.Math.max;
+import static tablut.AI.INFTY;
+import static tablut.AI.WILL_WIN_VALUE;
+import static tablut.AI.WINNING_VALUE;
+import static tablut.Board.MAX_MOVES;
+import static tablut.Square.sq;
+
+/**
+ * One thread's share of the search for an AI's move.  A Searcher searches
+ * its own copy of a position with its own move-ordering tables, but
+ * records its results in a transposition table that may be shared with
+ * Searchers running on other threads.  An AI searching on N threads runs
+ * N Searchers on the same position at once; each profits from the
+ * results the others leave in the table, and the helpers, which start at
+ * different depths, fill it with positions the main search reaches
+ * later.  Moves are handled in their packed form (see Move.packed) in
+ * per-ply buffers, so the search itself allocates nothing.
+ *
+ * @author Yunshun Zhong
+ */
+final class Searcher {
+
+    /**
+     * The deepest search tried.
+     */
+    static final int MAX_DEPTH = 32;
+
+    /**
+     * Optional search features: null-move pruning and late-move
+     * reductions.
+     */
+    static final int
+            NULL_MOVE = 1,
+            REDUCTIONS = 2,
+            ALL_FEATURES = NULL_MOVE | REDUCTIONS;
+
+    /**
+     * A Searcher recording its results in TABLE and using all optional
+     * features.
+     */
+    Searcher(TranspositionTable table) {
+        _table = table;
+        _features = ALL_FEATURES;
+    }
+
+    /**
+     * Use the optional features in FEATURES, a combination of NULL_MOVE
+     * and REDUCTIONS, in later searches.
+     */
+    void setFeatures(int features) {
+        _features = features;
+    }
+
+    /**
+     * Prepare to search from position BOARD, which is copied, evaluating
+     * positions with noise derived from SEED (see AI.staticScore).  Must
+     * be called by the thread that starts the search, before starting it.
+     */
+    void setPosition(Board board, long seed) {
+        _board.copy(board);
+        _seed = seed;
+        _stopped = false;
+        _nodeLimit = Long.MAX_VALUE;
+        _nodes = _cutoffs = _firstMoveCutoffs = _researches = 0;
+        _depth = _score = 0;
+        startOrdering();
+    }
+
+    /**
+     * Stop the next search once it has visited LIMIT positions, except
+     * during its first iteration, as for the time budget of search.
+     * Must be called after setPosition, which removes any limit.
+     */
+    void setNodeLimit(long limit) {
+        _nodeLimit = limit;
+    }
+
+    /**
+     * Call LISTENER, if not null, on the thread searching, after each
+     * iteration of later searches completes, with this Searcher, whose
+     * depth, score, nodes, and principalVariation then describe the
+     * iteration.
+     */
+    void setListener(Consumer<Searcher> listener) {
+        _listener = listener;
+    }
+
+    /**
+     * Search my position to depths FIRSTDEPTH, FIRSTDEPTH + 1, ...,
+     * LASTDEPTH in turn, each search starting with the best move found by
+     * the one before, and return the move found by the last complete
+     * search, or null if none completed.  Each search after the first
+     * starts with an aspiration window around the score of the one
+     * before (see aspirate).  With BUDGET > 0, stops once
+     * BUDGET milliseconds have passed since START (as for
+     * System.currentTimeMillis), or earlier if the next search is
+     * unlikely to finish in time; the first search is never cut short.
+     * Likewise stops after the node limit set by setNodeLimit.  Also
+     * stops once a win or loss is certain or stop is called.  Another
+     * thread may change LASTDEPTH, START, and BUDGET meanwhile with
+     * setLimits.
+     */
+    Move search(int firstDepth, int lastDepth, long start, long budget) {
+        _deadline = Long.MAX_VALUE;
+        _nodeStop = Long.MAX_VALUE;
+        synchronized (this) {
+            _lastDepth = lastDepth;
+            _start = start;
+            _budget = budget;
+        }
+        Move best = null;
+        int score = 0;
+        for (int depth = firstDepth; depth <= _lastDepth; depth += 1) {
+            score = aspirate(depth, score, depth == firstDepth);
+            if (_stopped || _lastFoundMove == 0) {
+                break;
+            }
+            best = Move.mv(_lastFoundMove);
+            _rootMove = _lastFoundMove;
+            _depth = depth;
+            _score = score;
+            if (_listener != null) {
+                _listener.accept(this);
+            }
+            _nodeStop = _nodeLimit;
+            if (Math.abs(score) == WINNING_VALUE) {
+                break;
+            }
+            synchronized (this) {
+                if (_budget > 0) {
+                    long elapsed = System.currentTimeMillis() - _start;
+                    if (elapsed > _budget / 2) {
+                        break;
+                    }
+                    _deadline = _start + _budget;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Continue the search in progress, which may be running on another
+     * thread, as if search had been called with LASTDEPTH, START, and
+     * BUDGET, stopping it at once if it has already completed the search
+     * to LASTDEPTH.
+     */
+    synchronized void setLimits(int lastDepth, long start, long budget) {
+        _lastDepth = lastDepth;
+        _start = start;
+        _budget = budget;
+        if (_depth >= lastDepth) {
+            stop();
+        } else if (_depth > 0) {
+            _deadline = budget > 0 ? start + budget : Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * Search my position to DEPTH and return its value, recording the
+     * move found in _lastFoundMove.  Unless FULL, first searches with a
+     * narrow window around GUESS, the value expected, and widens the
+     * window after each search whose value falls outside it, until the
+     * value is exact.
+     */
+    private int aspirate(int depth, int guess, boolean full) {
+        long window = full || Math.abs(guess) >= WILL_WIN_VALUE
+                ? INFTY : ASPIRATION_WINDOW;
+        while (true) {
+            int alpha = (int) Math.max(-INFTY, guess - window),
+                    beta = (int) Math.min(INFTY, guess + window);
+            _lastFoundMove = 0;
+            int score = findMove(_board, depth, 0, alpha, beta);
+            if (_stopped || (score > alpha || alpha == -INFTY)
+                    && (score < beta || beta == INFTY)) {
+                return score;
+            }
+            _researches += 1;
+            window *= ASPIRATION_GROWTH;
+        }
+    }
+
+    /**
+     * Stop the current search as soon as possible.  May be called from
+     * any thread.
+     */
+    void stop() {
+        _stopped = true;
+    }
+
+    /**
+     * Return the depth of the last complete search.
+     */
+    int depth() {
+        return _depth;
+    }
+
+    /**
+     * Return the value, for the side to move, found by the last complete
+     * search.
+     */
+    int score() {
+        return _score;
+    }
+
+    /**
+     * Return the number of positions visited since setPosition.
+     */
+    long nodes() {
+        return _nodes;
+    }
+
+    /**
+     * Return the principal variation found by the last complete search:
+     * its best move, followed by the best replies recorded in the
+     * transposition table, as far as they are legal and at most depth()
+     * moves in all.
+     */
+    List<Move> principalVariation() {
+        List<Move> line = new ArrayList<>();
+        if (_rootMove == 0) {
+            return line;
+        }
+        Board board = new Board(_board);
+        Move move = Move.mv(_rootMove);
+        while (move != null && line.size() < _depth) {
+            line.add(move);
+            board.makeMove(move);
+            long entry = _table.probe(tableKey(board));
+            move = entry == 0 || board.winner() != null ? null
+                    : Move.mv(TranspositionTable.move(entry));
+            if (move != null && !board.isLegal(move)) {
+                move = null;
+            }
+        }
+        return line;
+    }
+
+    /**
+     * Return the number of searches repeated with a wider window since
+     * setPosition, both at the root (see aspirate) and after null-window
+     * searches of moves other than the first.
+     */
+    long researches() {
+        return _researches;
+    }
+
+    /**
+     * Return the number of cutoffs since setPosition.
+     */
+    long cutoffs() {
+        return _cutoffs;
+    }
+
+    /**
+     * Return the number of cutoffs since setPosition caused by the first
+     * move tried.
+     */
+    long firstMoveCutoffs() {
+        return _firstMoveCutoffs;
+    }
+
+    /**
+     * Find a move from position BOARD, PLY moves below the root, and
+     * return its value from the point of view of the side to move.  A
+     * value <= ALPHA is only an upper bound on the true value, and one
+     * >= BETA only a lower bound.  Records the move found in
+     * _lastFoundMove iff PLY is 0.  Searches up to DEPTH levels, and
+     * then continues with quiesce.  Searches the first move with the
+     * window ALPHA .. BETA and the others, in the expectation that they
+     * are worse, with a null window just above ALPHA; one that proves
+     * better is searched again with the full window.  With NULL_MOVE,
+     * first tries passing (see tryNullMove).  With REDUCTIONS, searches
+     * quiet moves late in the order to reduced depth, and again to full
+     * depth if they prove better than ALPHA.  BOARD is restored
+     * before returning.  Once the time allowed runs out or stop is called,
+     * sets _stopped and returns a meaningless value.
+     */
+    private int findMove(Board board, int depth, int ply,
+                         int alpha, int beta) {
+        if (depth == 0) {
+            return quiesce(board, 0, ply, alpha, beta);
+        }
+        if (visit()) {
+            return 0;
+        }
+        if (board.winner() != null) {
+            return board.winner() == board.turn()
+                    ? -WINNING_VALUE : WINNING_VALUE;
+        }
+        int sense = board.turn() == Piece.WHITE ? 1 : -1;
+        if (board.checkGameOver()) {
+            return sense * AI.staticScore(board, _seed);
+        }
+
+        long key = tableKey(board);
+        long entry = _table.probe(key);
+        int hashMove = 0;
+        if (entry != 0) {
+            hashMove = TranspositionTable.move(entry);
+            int score = TranspositionTable.score(entry),
+                    bound = TranspositionTable.bound(entry);
+            if (ply > 0 && TranspositionTable.depth(entry) >= depth
+                    && (bound == TranspositionTable.EXACT
+                    || bound == TranspositionTable.LOWER && score >= beta
+                    || bound == TranspositionTable.UPPER && score <= alpha)) {
+                return score;
+            }
+        }
+
+        if (ply == 0 && hashMove == 0) {
+            hashMove = _rootMove;
+        }
+
+        if (ply > 0 && tryNullMove(board, depth, ply, beta)) {
+            return beta;
+        }
+        if (_stopped) {
+            return 0;
+        }
+
+        int[] moves = _moves[ply];
+        int numMoves = board.generateMoves(board.turn(), moves);
+        if (numMoves == 0) {
+            return sense * AI.staticScore(board, _seed);
+        }
+        int[] scores = scoreMoves(board, moves, numMoves, hashMove, ply);
+
+        int alpha0 = alpha;
+        int bestSoFar = -INFTY;
+        int bestMove = 0;
+        for (int i = 0; i < numMoves; i += 1) {
+            int move = selectMove(moves, scores, numMoves, i);
+            board.makeMove(move);
+            int nextScore;
+            if (i == 0) {
+                nextScore = -findMove(board, depth - 1, ply + 1,
+                        -beta, -alpha);
+            } else {
+                int reduction = reduction(depth, i, scores[i]);
+                nextScore = -findMove(board, depth - 1 - reduction, ply + 1,
+                        -alpha - 1, -alpha);
+                if (reduction > 0 && nextScore > alpha && !_stopped) {
+                    _researches += 1;
+                    nextScore = -findMove(board, depth - 1, ply + 1,
+                            -alpha - 1, -alpha);
+                }
+                if (nextScore > alpha && nextScore < beta && !_stopped) {
+                    _researches += 1;
+                    nextScore = -findMove(board, depth - 1, ply + 1,
+                            -beta, -alpha);
+                }
+            }
+            board.unmakeMove();
+            if (_stopped) {
+                return 0;
+            }
+            if (nextScore > bestSoFar) {
+                bestSoFar = nextScore;
+                bestMove = move;
+                alpha = max(alpha, nextScore);
+                if (beta <= alpha) {
+                    recordCutoff(board, move, depth, ply, i);
+                    break;
+                }
+            }
+        }
+        if (ply == 0) {
+            _lastFoundMove = bestMove;
+        }
+
+        int bound = bestSoFar <= alpha0 ? TranspositionTable.UPPER
+                : bestSoFar >= beta ? TranspositionTable.LOWER
+                : TranspositionTable.EXACT;
+        _table.store(key, depth, bestSoFar, bound, bestMove);
+        return bestSoFar;
+    }
+
+    /**
+     * With NULL_MOVE, try passing in BOARD, PLY moves below the root with
+     * DEPTH levels to go, and return true iff the value of the resulting
+     * position to the opponent, searched to reduced depth, is still at
+     * least BETA, so that the search of BOARD can stop.  Does not pass
+     * twice in a row, near a win or loss, when the static value of BOARD
+     * is already below BETA, or when the side to move has few pieces
+     * able to move, where passing may be better than any real move.
+     */
+    private boolean tryNullMove(Board board, int depth, int ply, int beta) {
+        if ((_features & NULL_MOVE) == 0 || depth < NULL_MOVE_MIN_DEPTH
+                || _passed[ply - 1] || Math.abs(beta) >= WILL_WIN_VALUE
+                || board.mobilePieces(board.turn(), NULL_MOVE_MIN_MOBILE)
+                < NULL_MOVE_MIN_MOBILE) {
+            return false;
+        }
+        int sense = board.turn() == Piece.WHITE ? 1 : -1;
+        if (sense * AI.staticScore(board, _seed) < beta) {
+            return false;
+        }
+        board.makeNullMove();
+        _passed[ply] = true;
+        int score = -findMove(board, depth - 1 - NULL_MOVE_REDUCTION,
+                ply + 1, -beta, -beta + 1);
+        _passed[ply] = false;
+        board.unmakeMove();
+        return !_stopped && score >= beta;
+    }
+
+    /**
+     * Return the number of levels by which to reduce the search of the
+     * Ith move in order at a node with DEPTH levels to go, given its
+     * ordering SCORE (see scoreMoves).  Only quiet moves that are not
+     * killers are reduced, by about log(DEPTH) * log(I) / 2 levels,
+     * leaving at least one level.
+     */
+    private int reduction(int depth, int i, int score) {
+        if ((_features & REDUCTIONS) == 0 || depth < REDUCTION_MIN_DEPTH
+                || i < REDUCTION_MIN_MOVES || score >= KILLER_SCORE) {
+            return 0;
+        }
+        return REDUCTION[Math.min(depth, MAX_DEPTH)][i];
+    }
+
+    /**
+     * Return the value of position BOARD, PLY moves below the root, as
+     * for findMove, searching only the moves that change the position
+     * sharply: captures, and moves taking the king to the edge.  The side
+     * to move may instead "stand pat" and take the static value of BOARD,
+     * so that a value at least BETA ends the search at once.  Stops
+     * extending after MAX_QUIESCENCE_DEPTH moves, of which DEPTH have
+     * been made so far.  BOARD is restored before returning.
+     */
+    private int quiesce(Board board, int depth, int ply,
+                        int alpha, int beta) {
+        if (visit()) {
+            return 0;
+        }
+        if (board.winner() != null) {
+            return board.winner() == board.turn()
+                    ? -WINNING_VALUE : WINNING_VALUE;
+        }
+        int sense = board.turn() == Piece.WHITE ? 1 : -1;
+        int standPat = sense * AI.staticScore(board, _seed);
+        if (standPat >= beta || depth == MAX_QUIESCENCE_DEPTH
+                || board.checkGameOver()) {
+            return standPat;
+        }
+        alpha = max(alpha, standPat);
+
+        int[] moves = _moves[ply];
+        int numMoves = board.generateMoves(board.turn(), moves);
+        int bestSoFar = standPat;
+        for (int i = 0; i < numMoves; i += 1) {
+            int move = moves[i];
+            if (!isKingEscape(board, move) && !board.isCapture(move)) {
+                continue;
+            }
+            board.makeMove(move);
+            int nextScore = -quiesce(board, depth + 1, ply + 1,
+                    -beta, -alpha);
+            board.unmakeMove();
+            if (_stopped) {
+                return 0;
+            }
+            if (nextScore > bestSoFar) {
+                bestSoFar = nextScore;
+                alpha = max(alpha, nextScore);
+                if (beta <= alpha) {
+                    break;
+                }
+            }
+        }
+        return bestSoFar;
+    }
+
+    /**
+     * Count a visit to a position, checking the clock every
+     * CLOCK_INTERVAL visits, and return true iff the search must stop.
+     */
+    private boolean visit() {
+        _nodes += 1;
+        if (_nodes % CLOCK_INTERVAL == 0
+                && System.currentTimeMillis() >= _deadline
+                || _nodes >= _nodeStop) {
+            _stopped = true;
+        }
+        return _stopped;
+    }
+
+    /**
+     * Return true iff the packed MOVE in BOARD takes the king to the
+     * edge, winning at once.
+     */
+    private static boolean isKingEscape(Board board, int move) {
+        Square to = sq(move & 0x7f);
+        return to.isEdge() && board.get(sq(move >>> 7)) == Piece.KING;
+    }
+
+    /**
+     * Return the ordering scores of MOVES[0 .. NUMMOVES-1], the packed
+     * legal moves in BOARD at PLY, where HASHMOVE is the packed best move
+     * recorded for BOARD (or 0).  Moves are searched in decreasing order
+     * of score: first HASHMOVE, then captures and moves of the king, then
+     * the killer moves for PLY, and then the remaining moves by their
+     * history scores.  The result is reused for each call at PLY.
+     */
+    private int[] scoreMoves(Board board, int[] moves, int numMoves,
+                             int hashMove, int ply) {
+        int[] scores = _moveScores[ply];
+        for (int i = 0; i < numMoves; i += 1) {
+            int packed = moves[i];
+            if (packed == hashMove) {
+                scores[i] = HASH_MOVE_SCORE;
+            } else if (!isQuiet(board, packed)) {
+                scores[i] = CAPTURE_SCORE + _historyScores[packed];
+            } else if (packed == _killers[ply][0]
+                    || packed == _killers[ply][1]) {
+                scores[i] = KILLER_SCORE;
+            } else {
+                scores[i] = _historyScores[packed];
+            }
+        }
+        return scores;
+    }
+
+    /**
+     * Move the move with the largest of SCORES[I .. NUMMOVES-1] in MOVES
+     * to position I of MOVES (and its score likewise in SCORES), and
+     * return it.
+     */
+    private static int selectMove(int[] moves, int[] scores, int numMoves,
+                                  int i) {
+        int best = i;
+        for (int j = i + 1; j < numMoves; j += 1) {
+            if (scores[j] > scores[best]) {
+                best = j;
+            }
+        }
+        if (best != i) {
+            int move = moves[i];
+            moves[i] = moves[best];
+            moves[best] = move;
+            int score = scores[i];
+            scores[i] = scores[best];
+            scores[best] = score;
+        }
+        return moves[i];
+    }
+
+    /**
+     * Return true iff the packed MOVE in BOARD neither captures nor moves
+     * the king.
+     */
+    private static boolean isQuiet(Board board, int move) {
+        return board.get(sq(move >>> 7)) != Piece.KING
+                && !board.isCapture(move);
+    }
+
+    /**
+     * Record that the packed MOVE, the Ith move tried in BOARD at PLY
+     * with DEPTH levels to go, caused a cutoff.  Quiet moves become
+     * killers for PLY and gain history score.
+     */
+    private void recordCutoff(Board board, int move, int depth, int ply,
+                              int i) {
+        _cutoffs += 1;
+        if (i == 0) {
+            _firstMoveCutoffs += 1;
+        }
+        if (!isQuiet(board, move)) {
+            return;
+        }
+        if (_killers[ply][0] != move) {
+            _killers[ply][1] = _killers[ply][0];
+            _killers[ply][0] = move;
+        }
+        _historyScores[move] += depth * depth;
+        if (_historyScores[move] >= MAX_HISTORY_SCORE) {
+            for (int k = 0; k < _historyScores.length; k += 1) {
+                _historyScores[k] /= 2;
+            }
+        }
+    }
+
+    /**
+     * Forget the history scores gathered by all my earlier searches.
+     */
+    void clearHistory() {
+        Arrays.fill(_historyScores, 0);
+    }
+
+    /**
+     * Prepare the move-ordering tables for a new search: forget the
+     * killers and the previous root move, and age the history scores.
+     */
+    private void startOrdering() {
+        for (int[] killers : _killers) {
+            killers[0] = killers[1] = 0;
+        }
+        for (int k = 0; k < _historyScores.length; k += 1) {
+            _historyScores[k] /= 2;
+        }
+        _rootMove = 0;
+    }
+
+    /**
+     * Return the key under which BOARD is recorded in the transposition
+     * table.  With a move limit, a position's value also depends on the
+     * number of moves made, so that is mixed into the board's key.
+     */
+    static long tableKey(Board board) {
+        if (board.limit() == 0) {
+            return board.key();
+        }
+        return board.key() ^ board.moveCount() * 0x9e3779b97f4a7c15L;
+    }
+
+    /**
+     * The number of positions between checks of the clock.
+     */
+    private static final int CLOCK_INTERVAL = 1024;
+
+    /**
+     * The half-width of the first aspiration window, and the factor by
+     * which it grows after each failed search.
+     */
+    static final int
+            ASPIRATION_WINDOW = 2000,
+            ASPIRATION_GROWTH = 8;
+
+    /**
+     * Null-move pruning is tried with at least NULL_MOVE_MIN_DEPTH levels
+     * to go, when the side to move has at least NULL_MOVE_MIN_MOBILE
+     * pieces able to move, and searches NULL_MOVE_REDUCTION levels less
+     * than a real move would.
+     */
+    private static final int
+            NULL_MOVE_MIN_DEPTH = 3,
+            NULL_MOVE_MIN_MOBILE = 3,
+            NULL_MOVE_REDUCTION = 2;
+
+    /**
+     * Late-move reductions apply with at least REDUCTION_MIN_DEPTH levels
+     * to go, from the REDUCTION_MIN_MOVES-th move on.
+     */
+    private static final int
+            REDUCTION_MIN_DEPTH = 3,
+            REDUCTION_MIN_MOVES = 3;
+
+    /**
+     * REDUCTION[d][i] is the reduction for the Ith move with d levels to
+     * go (see reduction).
+     */
+    private static final int[][] REDUCTION =
+            new int[MAX_DEPTH + 1][MAX_MOVES];
+
+    static {
+        for (int d = 1; d <= MAX_DEPTH; d += 1) {
+            for (int i = 1; i < MAX_MOVES; i += 1) {
+                int r = (int) (0.5 + Math.log(d) * Math.log(i) / 2);
+                REDUCTION[d][i] = Math.max(0, Math.min(r, d - 2));
+            }
+        }
+    }
+
+    /**
+     * The largest number of moves made by quiesce.
+     */
+    private static final int MAX_QUIESCENCE_DEPTH = 8;
+
+    /**
+     * The largest number of moves between the root and any position
+     * searched.
+     */
+    private static final int MAX_PLY = MAX_DEPTH + MAX_QUIESCENCE_DEPTH + 1;
+
+    /**
+     * Ordering scores for the hash move, captures and king moves, and
+     * killer moves.  History scores are always below KILLER_SCORE.
+     */
+    private static final int
+            HASH_MOVE_SCORE = 1 << 30,
+            CAPTURE_SCORE = 1 << 29,
+            KILLER_SCORE = 1 << 28,
+            MAX_HISTORY_SCORE = 1 << 20;
+
+    /**
+     * The position searched, which belongs to this Searcher alone.
+     */
+    private final Board _board = new Board();
+
+    /**
+     * Results of searches, possibly shared with other Searchers.
+     */
+    private final TranspositionTable _table;
+
+    /**
+     * The optional features in use (see setFeatures).
+     */
+    private int _features;
+
+    /**
+     * _passed[p] is true iff the move made at ply p is a null move.
+     */
+    private final boolean[] _passed = new boolean[MAX_PLY];
+
+    /**
+     * The seed for the evaluation noise.
+     */
+    private long _seed;
+
+    /**
+     * The time (as for System.currentTimeMillis) at which the current
+     * search must stop.  Set by other threads through setLimits.
+     */
+    private volatile long _deadline;
+
+    /**
+     * The last depth to which the current search goes, as for search.
+     * Set by other threads through setLimits.
+     */
+    private volatile int _lastDepth;
+
+    /**
+     * The start and time budget of the current search, as for search.
+     * Guarded by this Searcher's lock.
+     */
+    private long _start, _budget;
+
+    /**
+     * The node limit set by setNodeLimit, and the number of positions
+     * after which the current search must stop (which is _nodeLimit once
+     * the first iteration is complete).
+     */
+    private long _nodeLimit, _nodeStop;
+
+    /**
+     * Called after each complete iteration, or null (see setListener).
+     */
+    private Consumer<Searcher> _listener;
+
+    /**
+     * True once the current search has run out of time or been stopped.
+     * Set by other threads through stop.
+     */
+    private volatile boolean _stopped;
+
+    /**
+     * The number of positions visited by the current search.
+     */
+    private long _nodes;
+
+    /**
+     * The depth of the last complete search, read by other threads
+     * through setLimits.
+     */
+    private volatile int _depth;
+
+    /**
+     * The value of the last complete search.
+     */
+    private int _score;
+
+    /**
+     * The packed move found by the last call to findMove at the root, or
+     * 0 if none.
+     */
+    private int _lastFoundMove;
+
+    /**
+     * _moves[p] holds the packed legal moves at ply p.
+     */
+    private final int[][] _moves = new int[MAX_PLY][MAX_MOVES];
+
+    /**
+     * _moveScores[p] holds the ordering scores of the moves at ply p.
+     */
+    private final int[][] _moveScores = new int[MAX_PLY][MAX_MOVES];
+
+    /**
+     * _killers[p] holds the last two quiet moves (packed) that caused a
+     * cutoff at ply p.
+     */
+    private final int[][] _killers = new int[MAX_PLY][2];
+
+    /**
+     * The history table: _historyScores[m] grows with the depth of the
+     * cutoffs caused by the packed quiet move m.
+     */
+    private final int[] _historyScores = new int[1 << 14];
+
+    /**
+     * The packed best move found by the last completed iteration.
+     */
+    private int _rootMove;
+
+    /**
+     * The number of cutoffs in the current search, and the number of
+     * those caused by the first move tried.
+     */
+    private long _cutoffs, _firstMoveCutoffs;
+
+    /**
+     * The number of searches repeated with a wider window.
+     */
+    private long _researches;
+}
@@ -1,9 +1,12 @@
 package tablut;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.RandomAccess;
 
 
 import static tablut.Utils.error;
@@ -217,22 +220,33 @@ final class Square {
     }
 
     /**
-     * A convenience class to represent mutable lists of squares.  This
-     * class may safely be used as the element type in an array.
+     * A convenience class to represent immutable lists of squares, which
+     * may be shared freely between threads.  This class may safely be
+     * used as the element type in an array.
      */
-    static class SqList extends ArrayList<Square> {
+    static final class SqList extends AbstractList<Square>
+            implements RandomAccess {
         /**
-         * An initially empty list.
+         * A list of the squares in INIT, in order.
          */
-        SqList() {
+        SqList(Collection<Square> init) {
+            _squares = init.toArray(new Square[init.size()]);
+        }
+
+        @Override
+        public Square get(int k) {
+            return _squares[k];
+        }
+
+        @Override
+        public int size() {
+            return _squares.length;
         }
 
         /**
-         * A list initialize to INIT.
+         * My contents.
          */
-        SqList(Collection<Square> init) {
-            super(init);
-        }
+        private final Square[] _squares;
     }
 
     @Override
@@ -252,9 +266,10 @@ final class Square {
             new Square[NUM_SQUARES];
 
     /**
-     * SQUARES viewed as a List.
+     * SQUARES viewed as an unmodifiable List.
      */
-    static final List<Square> SQUARE_LIST = Arrays.asList(SQUARES);
+    static final List<Square> SQUARE_LIST =
+            Collections.unmodifiableList(Arrays.asList(SQUARES));
 
     static {
         for (int i = NUM_SQUARES - 1; i >= 0; i -= 1) {
@@ -265,7 +280,7 @@ final class Square {
     /**
      * An empty list of Squares.
      */
-    static final List<Square> EMPTY_SQUARE_LIST = new SqList();
+    static final List<Square> EMPTY_SQUARE_LIST = Collections.emptyList();
 
     /**
      * ROOK_SQUARES[i][d] is a list of all squares one rook move in direction
@@ -279,7 +294,7 @@ final class Square {
         for (Square sq : SQUARES) {
             int r0 = sq.row(), c0 = sq.col(), i0 = sq.index();
             for (int d = 0; d < DIR.length; d += 1) {
-                SqList L = ROOK_SQUARES[i0][d] = new SqList();
+                List<Square> L = new ArrayList<>();
                 for (int k = 1; true; k += 1) {
                     int c1 = c0 + k * DIR[d][0], r1 = r0 + k * DIR[d][1];
                     if (!exists(c1, r1)) {
@@ -287,6 +302,34 @@ final class Square {
                     }
                     L.add(sq(c1, r1));
                 }
+                ROOK_SQUARES[i0][d] = new SqList(L);
+            }
+        }
+    }
+
+    /**
+     * SLIDES[k][occ] is the set of positions along a row or column that a
+     * rook at position k on it can reach, when OCC is the set of occupied
+     * positions on it.  A set of positions is represented by the bits of
+     * an int: bit j stands for column j of a row or row j of a column.
+     * Bit k of OCC is ignored.  With the row's or column's occupancy at
+     * hand, the squares reachable from any square thus take one lookup.
+     */
+    static final int[][] SLIDES =
+            new int[BOARD_SIZE][1 << BOARD_SIZE];
+
+    static {
+        for (int k = 0; k < BOARD_SIZE; k += 1) {
+            for (int occ = 0; occ < 1 << BOARD_SIZE; occ += 1) {
+                int reach = 0;
+                for (int j = k + 1; j < BOARD_SIZE && (occ >> j & 1) == 0;
+                     j += 1) {
+                    reach |= 1 << j;
+                }
+                for (int j = k - 1; j >= 0 && (occ >> j & 1) == 0; j -= 1) {
+                    reach |= 1 << j;
+                }
+                SLIDES[k][occ] = reach;
             }
         }
     }
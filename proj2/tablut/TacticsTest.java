@@ -0,0 +1,297 @@
+package tablut;
+
+import org.junit.Test;
+
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tactical positions that the AI's search must get right with any
+ * combination of its optional forward-pruning features (null moves and
+ * late-move reductions), at every depth at which those features apply.
+ *
+ * @author Yunshun Zhong
+ */
+public class TacticsTest {
+
+    /**
+     * The combinations of search features tried.
+     */
+    private static final int[] FEATURES = {
+        0, Searcher.NULL_MOVE, Searcher.REDUCTIONS, Searcher.ALL_FEATURES
+    };
+
+    /**
+     * The deepest search tried.
+     */
+    private static final int DEPTH = 5;
+
+    /**
+     * White to move: the king escapes at once.
+     */
+    @Test
+    public void kingEscapeTest() {
+        for (int features : FEATURES) {
+            for (int depth = 1; depth <= DEPTH; depth += 1) {
+                Board board = position(Piece.WHITE,
+                        "------B--",
+                        "-------B-",
+                        "--------B",
+                        "---------",
+                        "---------",
+                        "---------",
+                        "--K------",
+                        "---------",
+                        "----B----");
+                Searcher searcher = search(board, depth, features);
+                assertTrue("The king should escape",
+                        searcher.score() == AI.WINNING_VALUE
+                        && board.winner() == Piece.WHITE);
+            }
+        }
+    }
+
+    /**
+     * White to move: a king move opens two lines to the edge, and black
+     * can block only one of them.
+     */
+    @Test
+    public void doubleThreatTest() {
+        for (int features : FEATURES) {
+            for (int depth = 3; depth <= DEPTH; depth += 1) {
+                Board board = position(Piece.WHITE,
+                        "------B--",
+                        "-------B-",
+                        "--------B",
+                        "--W------",
+                        "---------",
+                        "-WK----W-",
+                        "---------",
+                        "--B------",
+                        "---------");
+                Searcher searcher = search(board, depth, features);
+                assertTrue("White should see the forced escape",
+                        searcher.score() == AI.WINNING_VALUE);
+                for (Move reply : board.legalMoves(Piece.BLACK)) {
+                    board.makeMove(reply);
+                    assertTrue("Black cannot stop both escapes",
+                            canEscape(board));
+                    board.unmakeMove();
+                }
+            }
+        }
+    }
+
+    /**
+     * The position of doubleThreatTest: an AI searching on several
+     * threads finds the same forced escape as one searching on one.
+     */
+    @Test
+    public void threadsTest() {
+        int[] threads = { 1, 4 };
+        String[] moves = new String[threads.length];
+        for (int k = 0; k < threads.length; k += 1) {
+            Controller controller =
+                    new Controller(new NullView(), null, new NullReporter(),
+                                   new TextPlayer(), new TextPlayer(), false);
+            Board board = controller.board();
+            board.copy(position(Piece.WHITE,
+                    "------B--",
+                    "-------B-",
+                    "--------B",
+                    "--W------",
+                    "---------",
+                    "-WK----W-",
+                    "---------",
+                    "--B------",
+                    "---------"));
+            AI ai = new AI(Piece.WHITE, controller, threads[k],
+                           Searcher.ALL_FEATURES);
+            moves[k] = ai.myMove();
+            Move move = Move.mv(moves[k]);
+            assertTrue("Bad move", move != null && board.isLegal(move));
+            board.makeMove(move);
+            for (Move reply : board.legalMoves(Piece.BLACK)) {
+                board.makeMove(reply);
+                assertTrue("Black cannot stop both escapes",
+                        canEscape(board));
+                board.unmakeMove();
+            }
+        }
+        assertTrue("Threads changed the move", moves[0].equals(moves[1]));
+    }
+
+    /**
+     * Black to move: the king threatens to escape along its one open
+     * line, and black must block it.
+     */
+    @Test
+    public void blockEscapeTest() {
+        for (int features : FEATURES) {
+            for (int depth = 1; depth <= DEPTH; depth += 1) {
+                Board board = position(Piece.BLACK,
+                        "BBBBBBBBB",
+                        "B-------B",
+                        "B-------B",
+                        "B-------B",
+                        "B-------B",
+                        "--K-----B",
+                        "B-------B",
+                        "B-------B",
+                        "BBBBBBBBB");
+                Searcher searcher = search(board, depth, features);
+                assertTrue("Black should not lose",
+                        searcher.score() != -AI.WINNING_VALUE);
+                assertTrue("Black should block the escape",
+                        !canEscape(board));
+            }
+        }
+    }
+
+    /**
+     * Black to move: black captures the king at once.
+     */
+    @Test
+    public void kingCaptureTest() {
+        for (int features : FEATURES) {
+            for (int depth = 1; depth <= DEPTH; depth += 1) {
+                Board board = position(Piece.BLACK,
+                        "---------",
+                        "---------",
+                        "----BK--B",
+                        "---------",
+                        "---------",
+                        "---------",
+                        "---------",
+                        "---------",
+                        "B-------B");
+                Searcher searcher = search(board, depth, features);
+                assertTrue("Black should capture the king",
+                        searcher.score() == AI.WINNING_VALUE
+                        && board.winner() == Piece.BLACK);
+            }
+        }
+    }
+
+    /**
+     * White to move: white captures a black piece, leaving black too few
+     * to stop the king.
+     */
+    @Test
+    public void captureTest() {
+        for (int features : FEATURES) {
+            for (int depth = 1; depth <= DEPTH; depth += 1) {
+                Board board = position(Piece.WHITE,
+                        "------B--",
+                        "-------B-",
+                        "--------B",
+                        "----W----",
+                        "---WKW---",
+                        "----W----",
+                        "--W------",
+                        "B--------",
+                        "W--------");
+                search(board, depth, features);
+                assertTrue("White should capture",
+                        board.pieceCount(Piece.BLACK) == 3);
+            }
+        }
+    }
+
+    /**
+     * White to move, searching to depth 1: h6-b scores best statically,
+     * but black replies i7-b, capturing it.  Only the quiescence search
+     * beyond the horizon sees the capture, and so avoids the move.
+     */
+    @Test
+    public void quiescenceTest() {
+        for (int features : FEATURES) {
+            Board board = position(Piece.WHITE,
+                    "-W--B----",
+                    "---------",
+                    "--------B",
+                    "-------W-",
+                    "-BB------",
+                    "---B-----",
+                    "B--KW---B",
+                    "---B---B-",
+                    "-BB------");
+            Move lure = Move.mv("h6-b");
+            Board lured = new Board(board);
+            lured.makeMove(lure);
+            Move move = search(board, 1, features).principalVariation()
+                    .get(0);
+            assertTrue("h6-b should look best statically",
+                    AI.staticScore(lured, 0) >= AI.staticScore(board, 0));
+            assertTrue("Black should capture after h6-b",
+                    lured.isCapture(Move.mv("i7-b").packed()));
+            assertTrue("White should avoid the capture",
+                    move != lure && !blackCaptures(board));
+        }
+    }
+
+    /**
+     * Return a board with TURN to move, holding the pieces shown in ROWS,
+     * which give rows 9 down to 1 as strings of the characters used by
+     * Piece.toString.
+     */
+    private static Board position(Piece turn, String... rows) {
+        Board board = new Board();
+        for (int r = 0; r < Board.SIZE; r += 1) {
+            String row = rows[Board.SIZE - 1 - r];
+            for (int c = 0; c < Board.SIZE; c += 1) {
+                Piece piece = Piece.EMPTY;
+                for (Piece p : Piece.values()) {
+                    if (p.toString().charAt(0) == row.charAt(c)) {
+                        piece = p;
+                    }
+                }
+                board.put(piece, Square.sq(c, r));
+            }
+        }
+        board.setTurn(turn);
+        return board;
+    }
+
+    /**
+     * Search BOARD to DEPTH with the optional search FEATURES, make the
+     * move found on BOARD, and return the Searcher used.
+     */
+    private static Searcher search(Board board, int depth, int features) {
+        Searcher searcher = new Searcher(new TranspositionTable(16));
+        searcher.setFeatures(features);
+        searcher.setPosition(board, 0);
+        Move move = searcher.search(1, depth, System.currentTimeMillis(), 0);
+        assertTrue("The search found no move", move != null);
+        board.makeMove(move);
+        return searcher;
+    }
+
+    /**
+     * Return true iff black is to move on BOARD and can capture.
+     */
+    private static boolean blackCaptures(Board board) {
+        for (Move move : board.legalMoves(Piece.BLACK)) {
+            if (board.isCapture(move.packed())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Return true iff white has won on BOARD, or is to move and can move
+     * the king to the edge.
+     */
+    private static boolean canEscape(Board board) {
+        if (board.winner() != null || board.turn() != Piece.WHITE) {
+            return board.winner() == Piece.WHITE;
+        }
+        for (Move move : board.legalMoves(Piece.WHITE)) {
+            if (board.get(move.from()) == Piece.KING && move.to().isEdge()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,394 @@
+package tablut;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import ucb.util.CommandArgs;
+
+import static tablut.Piece.BLACK;
+import static tablut.Piece.WHITE;
+
+/**
+ * A match between two configurations of the AI, A and B, played without
+ * a user in this process, with many games at once on a pool of threads.
+ * Each thread plays its games with its own Controller and Board, a
+ * NullView, a NullReporter, and its own AIs, which it clears between
+ * games.  Each AI searches to its usual depth on one thread with a
+ * small transposition table, so that many games fit in one process.
+ * Games come in pairs with the same seed (and so the same evaluation
+ * noise), A playing black in one and white in the other.  As Tablut has
+ * no draws, each game is a win for A or for B.
+ * <p>
+ * After each game, a sequential probability ratio test (SPRT) weighs
+ * the hypothesis H0 that A is ELO0 Elo points stronger than B against H1
+ * that it is ELO1 points stronger, and the match stops as soon as the
+ * test accepts one of them, or after the maximum number of games.
+ *
+ * @author Yunshun Zhong
+ */
+final class Tournament {
+
+    /**
+     * A match between AI configurations with search features FEATURESA
+     * and FEATURESB (as for Searcher.setFeatures), with a move limit of
+     * LIMIT (0 for none), transposition tables of 2**TABLEBITS entries,
+     * seeds starting at SEED, testing H0: A is ELO0
+     * Elo stronger than B, against H1: A is ELO1 stronger, with error
+     * probabilities ALPHA (of accepting H1 when H0 holds) and BETA (of
+     * accepting H0 when H1 holds).
+     */
+    Tournament(int featuresA, int featuresB, int limit, int tableBits,
+               long seed, double elo0, double elo1, double alpha,
+               double beta) {
+        if (tableBits < 1 || tableBits > AI.MAX_TABLE_BITS) {
+            throw Utils.error("bad table size: 2**%d", tableBits);
+        }
+        _featuresA = featuresA;
+        _featuresB = featuresB;
+        _limit = limit;
+        _tableBits = tableBits;
+        _seed = seed;
+        _elo0 = elo0;
+        _elo1 = elo1;
+        _lower = Math.log(beta / (1 - alpha));
+        _upper = Math.log((1 - beta) / alpha);
+    }
+
+    /**
+     * Play up to MAXGAMES games on THREADS threads, reporting progress
+     * on standard output after every REPORTINTERVAL games, and return
+     * the SPRT's verdict: 1 if it accepted H1, -1 if it accepted H0, and
+     * 0 if the games ran out first.
+     */
+    int run(int maxGames, int threads, int reportInterval) {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        ExecutorCompletionService<Boolean> games =
+                new ExecutorCompletionService<>(pool);
+        int started, verdict = 0;
+        try {
+            for (started = 0; started < Math.min(threads, maxGames);
+                 started += 1) {
+                submit(games, started);
+            }
+            for (int done = 0; done < started; done += 1) {
+                if (games.take().get()) {
+                    _winsA += 1;
+                } else {
+                    _winsB += 1;
+                }
+                verdict = verdict();
+                if (verdict != 0 || (done + 1) % reportInterval == 0) {
+                    System.out.println(this);
+                }
+                if (verdict != 0) {
+                    break;
+                }
+                if (started < maxGames) {
+                    submit(games, started);
+                    started += 1;
+                }
+            }
+        } catch (InterruptedException excp) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException excp) {
+            throw new IllegalStateException(excp.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        return verdict;
+    }
+
+    /**
+     * Start game number GAME on GAMES.
+     */
+    private void submit(ExecutorCompletionService<Boolean> games,
+                        int game) {
+        games.submit(() -> play(game % 2 == 0, _seed + game / 2));
+    }
+
+    /**
+     * Play one game with seed SEED, A playing white iff AWHITE, and
+     * return true iff A won.
+     */
+    boolean play(boolean aWhite, long seed) {
+        Seat seat = _seats.get();
+        seat._controller.setSeed(seed);
+        Board board = seat._controller.board();
+        board.init();
+        if (_limit > 0) {
+            board.setMoveLimit(_limit);
+        }
+        Piece sideA = aWhite ? WHITE : BLACK;
+        AI a = seat.player(true, sideA),
+                b = seat.player(false, sideA.opponent());
+        while (board.winner() == null) {
+            Player player = board.turn() == sideA ? a : b;
+            String move = player.myMove();
+            if (move == null) {
+                throw new IllegalStateException("AI found no move");
+            }
+            board.makeMove(Move.mv(move));
+        }
+        return board.winner() == sideA;
+    }
+
+    /**
+     * The Controller and AIs with which one thread plays its games.
+     */
+    private final class Seat {
+
+        /**
+         * A Controller with the AIs of both configurations for each side.
+         */
+        Seat() {
+            _controller =
+                    new Controller(new NullView(), null, new NullReporter(),
+                                   new TextPlayer(), new TextPlayer(), false);
+            for (Piece side : new Piece[] { BLACK, WHITE }) {
+                _players[0][index(side)] =
+                        new AI(side, _controller, 1, _featuresA, false,
+                               _tableBits);
+                _players[1][index(side)] =
+                        new AI(side, _controller, 1, _featuresB, false,
+                               _tableBits);
+            }
+        }
+
+        /**
+         * Return my AI with configuration A iff ISA, playing SIDE,
+         * cleared of any earlier game.
+         */
+        AI player(boolean isA, Piece side) {
+            AI player = _players[isA ? 0 : 1][index(side)];
+            player.clear();
+            return player;
+        }
+
+        /**
+         * Return the index of SIDE in the rows of _players.
+         */
+        private int index(Piece side) {
+            return side == WHITE ? 1 : 0;
+        }
+
+        /**
+         * The Controller of my games.
+         */
+        private final Controller _controller;
+
+        /**
+         * _players[0] holds my AIs with configuration A and _players[1]
+         * those with configuration B, each indexed by the side they play.
+         */
+        private final AI[][] _players = new AI[2][2];
+    }
+
+    /**
+     * Return the log-likelihood ratio of H1 to H0 given my results.
+     */
+    double llr() {
+        return llr(_winsA, _winsB, _elo0, _elo1);
+    }
+
+    /**
+     * Return the log-likelihood ratio, given WINS wins and LOSSES losses,
+     * of the hypothesis that the player is ELO1 Elo points stronger than
+     * its opponent to the hypothesis that it is ELO0 points stronger.
+     */
+    static double llr(int wins, int losses, double elo0, double elo1) {
+        double p0 = expectedScore(elo0), p1 = expectedScore(elo1);
+        return wins * Math.log(p1 / p0)
+                + losses * Math.log((1 - p1) / (1 - p0));
+    }
+
+    /**
+     * Return the expected score (the probability of winning, in a game
+     * with no draws) of a player ELO Elo points stronger than its
+     * opponent.
+     */
+    static double expectedScore(double elo) {
+        return 1 / (1 + Math.pow(10, -elo / 400));
+    }
+
+    /**
+     * Return the SPRT's verdict on my results so far: 1 to accept H1, -1
+     * to accept H0, or 0 to continue.
+     */
+    int verdict() {
+        double llr = llr();
+        return llr >= _upper ? 1 : llr <= _lower ? -1 : 0;
+    }
+
+    @Override
+    public String toString() {
+        int games = _winsA + _winsB;
+        double score = games == 0 ? 0.5 : (double) _winsA / games;
+        String elo = score <= 0 || score >= 1 ? "-"
+                : String.format("%+.0f",
+                                400 * Math.log10(score / (1 - score)));
+        return String.format("%d games: A %d, B %d (A scores %.1f%%, "
+                             + "Elo %s); LLR %.2f in [%.2f, %.2f]",
+                             games, _winsA, _winsB, 100 * score, elo,
+                             llr(), _lower, _upper);
+    }
+
+    /**
+     * Return the search features described by SPEC: "all", "none", or a
+     * list of "null-move" and "reductions" separated by commas.
+     */
+    static int features(String spec) {
+        switch (spec) {
+        case "all":
+            return Searcher.ALL_FEATURES;
+        case "none":
+            return 0;
+        default:
+            int features = 0;
+            for (String feature : spec.split(",")) {
+                switch (feature) {
+                case "null-move":
+                    features |= Searcher.NULL_MOVE;
+                    break;
+                case "reductions":
+                    features |= Searcher.REDUCTIONS;
+                    break;
+                default:
+                    throw Utils.error("unknown search feature: %s",
+                                      feature);
+                }
+            }
+            return features;
+        }
+    }
+
+    /**
+     * Play a match between two AI configurations, given in ARGS as
+     * A B, each a description of search features as for features(), and
+     * optionally preceded by the options --games=N (the maximum number
+     * of games; 20000 by default), --threads=T (the number of games at
+     * once; the number of processors by default), --limit=M (the move
+     * limit; 100 by default), --table-bits=B (each AI's transposition
+     * table has 2**B entries; 16 by default), --seed=S, --elo0=E0 and
+     * --elo1=E1 (the hypotheses; 0 and 10 by default), --alpha=P and
+     * --beta=Q (the error probabilities; 0.05 by default), and
+     * --report=R (report every R games; 100 by default).  Exits with
+     * status 0 if the test accepts H1 (A is stronger), 1 if it accepts
+     * H0, and 2 if the games run out first.
+     */
+    public static void main(String... args) {
+        CommandArgs options =
+                new CommandArgs("--games={0,1}:(\\d+) --threads={0,1}:(\\d+) "
+                                + "--limit={0,1}:(\\d+) --seed={0,1}:(\\d+) "
+                                + "--table-bits={0,1}:(\\d+) "
+                                + "--elo0={0,1} --elo1={0,1} --alpha={0,1} "
+                                + "--beta={0,1} --report={0,1}:(\\d+) "
+                                + "--={2}", args);
+        Tournament match;
+        int games, threads, report;
+        try {
+            if (!options.ok()) {
+                throw Utils.error("bad options");
+            }
+            games = Integer.parseInt(option(options, "--games", "20000"));
+            threads = Integer.parseInt(
+                    option(options, "--threads",
+                           "" + Runtime.getRuntime().availableProcessors()));
+            report = Integer.parseInt(option(options, "--report", "100"));
+            match = new Tournament(
+                    features(options.get("--").get(0)),
+                    features(options.get("--").get(1)),
+                    Integer.parseInt(option(options, "--limit", "100")),
+                    Integer.parseInt(option(options, "--table-bits",
+                                            "" + TABLE_BITS)),
+                    Long.parseLong(option(options, "--seed", "1")),
+                    Double.parseDouble(option(options, "--elo0", "0")),
+                    Double.parseDouble(option(options, "--elo1", "10")),
+                    Double.parseDouble(option(options, "--alpha", "0.05")),
+                    Double.parseDouble(option(options, "--beta", "0.05")));
+            if (games < 1 || threads < 1 || report < 1) {
+                throw Utils.error("bad options");
+            }
+        } catch (IllegalArgumentException excp) {
+            System.err.println("Usage: java tablut.Tournament [--games=N]"
+                    + " [--threads=T] [--limit=M] [--table-bits=B]"
+                    + " [--seed=S] [--elo0=E0]"
+                    + " [--elo1=E1] [--alpha=P] [--beta=Q] [--report=R]"
+                    + " A B");
+            System.exit(3);
+            return;
+        }
+        switch (match.run(games, threads, report)) {
+        case 1:
+            System.out.println("H1 accepted: A is stronger.");
+            System.exit(0);
+            break;
+        case -1:
+            System.out.println("H0 accepted.");
+            System.exit(1);
+            break;
+        default:
+            System.out.println("No decision.");
+            System.exit(2);
+        }
+    }
+
+    /**
+     * Return the value of option NAME in OPTIONS, or DEFAULTVALUE if
+     * it is absent.
+     */
+    private static String option(CommandArgs options, String name,
+                                 String defaultValue) {
+        return options.contains(name) ? options.getFirst(name)
+                : defaultValue;
+    }
+
+    /**
+     * The default base 2 logarithm of the number of entries in each AI's
+     * transposition table: 2**16 entries take 1 MB.
+     */
+    static final int TABLE_BITS = 16;
+
+    /**
+     * The search features of configurations A and B.
+     */
+    private final int _featuresA, _featuresB;
+
+    /**
+     * The move limit, or 0 for none.
+     */
+    private final int _limit;
+
+    /**
+     * The base 2 logarithm of the number of entries in each AI's
+     * transposition table.
+     */
+    private final int _tableBits;
+
+    /**
+     * The Controller and AIs of each thread playing games.
+     */
+    private final ThreadLocal<Seat> _seats =
+            ThreadLocal.withInitial(Seat::new);
+
+    /**
+     * The seed of the first pair of games.
+     */
+    private final long _seed;
+
+    /**
+     * The Elo differences of H0 and H1.
+     */
+    private final double _elo0, _elo1;
+
+    /**
+     * The SPRT's bounds: it accepts H0 when the log-likelihood ratio
+     * falls to _lower and H1 when it rises to _upper.
+     */
+    private final double _lower, _upper;
+
+    /**
+     * The numbers of games won by A and by B.
+     */
+    private int _winsA, _winsB;
+}
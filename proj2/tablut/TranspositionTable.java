@@ -0,0 +1,159 @@
+package tablut;
+
+import java.util.Arrays;
+
+/**
+ * A fixed-size table of search results, indexed by position key.  Each
+ * entry records the score found for a position, whether that score is
+ * exact or only a bound, the depth to which the position was searched,
+ * and the best move found there.  When two positions share a slot, the
+ * result of the deeper search is kept, unless the entry there is left
+ * over from an earlier search.  Entries are packed into longs, so probing
+ * and storing allocate nothing.
+ * <p>
+ * A table may be shared by searches running on several threads at once
+ * without locking.  Each slot stores its key XORed with its entry, so
+ * that a slot torn by two threads writing it at the same time no longer
+ * matches either key and is simply treated as empty.
+ *
+ * @author Yunshun Zhong
+ */
+final class TranspositionTable {
+
+    /**
+     * Bound types.  A LOWER score is at most the true value (the search
+     * failed high), an UPPER score at least the true value (it failed
+     * low), and an EXACT score is both.
+     */
+    static final int LOWER = 1, UPPER = 2, EXACT = LOWER | UPPER;
+
+    /**
+     * The largest depth that can be recorded.
+     */
+    static final int MAX_DEPTH = 0xff;
+
+    /**
+     * A table with 2**LOGSIZE entries.
+     */
+    TranspositionTable(int logSize) {
+        _keys = new long[1 << logSize];
+        _entries = new long[1 << logSize];
+        _mask = (1 << logSize) - 1;
+    }
+
+    /**
+     * Remove all entries.
+     */
+    void clear() {
+        Arrays.fill(_keys, 0L);
+        Arrays.fill(_entries, 0L);
+    }
+
+    /**
+     * Start a new search, so that entries from previous ones are replaced
+     * in preference to those from this one.  Must not be called while
+     * another thread is using this table.
+     */
+    void newSearch() {
+        _generation = (_generation + 1) & 0xff;
+    }
+
+    /**
+     * Return the entry for the position with key KEY, or 0 if there is
+     * none.  The parts of a non-zero entry are extracted with score,
+     * depth, bound, and move.
+     */
+    long probe(long key) {
+        int slot = (int) key & _mask;
+        long entry = _entries[slot];
+        return (_keys[slot] ^ entry) == key ? entry : 0L;
+    }
+
+    /**
+     * Record that the position with key KEY, searched to DEPTH, has score
+     * SCORE with bound type BOUND, and best move MOVE (a packed move, or
+     * 0 if none).
+     */
+    void store(long key, int depth, int score, int bound, int move) {
+        int slot = (int) key & _mask;
+        long old = _entries[slot];
+        if (old != 0 && (_keys[slot] ^ old) != key
+                && (int) (old >>> GENERATION_SHIFT) == _generation
+                && depth(old) > depth) {
+            return;
+        }
+        long entry = (score & 0xffffffffL)
+                | (long) (move & MOVE_MASK) << MOVE_SHIFT
+                | (long) Math.min(depth, MAX_DEPTH) << DEPTH_SHIFT
+                | (long) bound << BOUND_SHIFT
+                | (long) _generation << GENERATION_SHIFT;
+        _keys[slot] = key ^ entry;
+        _entries[slot] = entry;
+    }
+
+    /**
+     * Return the score recorded in ENTRY.
+     */
+    static int score(long entry) {
+        return (int) entry;
+    }
+
+    /**
+     * Return the packed best move recorded in ENTRY, or 0 if none.
+     */
+    static int move(long entry) {
+        return (int) (entry >>> MOVE_SHIFT) & MOVE_MASK;
+    }
+
+    /**
+     * Return the search depth recorded in ENTRY.
+     */
+    static int depth(long entry) {
+        return (int) (entry >>> DEPTH_SHIFT) & MAX_DEPTH;
+    }
+
+    /**
+     * Return the bound type (LOWER, UPPER, or EXACT) recorded in ENTRY.
+     */
+    static int bound(long entry) {
+        return (int) (entry >>> BOUND_SHIFT) & EXACT;
+    }
+
+    /**
+     * Layout of an entry: the score in bits 0-31, the move in bits 32-45,
+     * the depth in bits 46-53, the bound in bits 54-55, and the
+     * generation in bits 56-63.  The bound is never 0, so neither is a
+     * stored entry.
+     */
+    private static final int
+            MOVE_SHIFT = 32,
+            DEPTH_SHIFT = 46,
+            BOUND_SHIFT = 54,
+            GENERATION_SHIFT = 56;
+
+    /**
+     * Mask for a packed move.
+     */
+    private static final int MOVE_MASK = (1 << 14) - 1;
+
+    /**
+     * The keys of the positions recorded in _entries, each XORed with
+     * its entry.
+     */
+    private final long[] _keys;
+
+    /**
+     * The packed entries.
+     */
+    private final long[] _entries;
+
+    /**
+     * Mask selecting a slot from a key.
+     */
+    private final int _mask;
+
+    /**
+     * The number of the current search, modulo 256.
+     */
+    private int _generation;
+}
@@ -1,6 +1,15 @@
 package tablut;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Future;
 import org.junit.Test;
 import ucb.junit.textui;
 
@@ -19,7 +28,7 @@ public class UnitTest {
      * the arguments of runClasses to run other JUnit tests.
      */
     public static void main(String[] ignored) {
-        textui.runClasses(UnitTest.class);
+        textui.runClasses(UnitTest.class, TacticsTest.class);
     }
 
     /**
@@ -47,12 +56,12 @@ public class UnitTest {
     }
 
     /**
-     * check the rook square.
+     * check the capture partner squares, two squares away from a square
+     * in each direction.
      */
     @Test
-    public void rookSquareTest() {
-        Board board = new Board();
-        List<Square> squares1 = board.rookSquare(Square.sq("i", "6"));
+    public void partnerSquareTest() {
+        List<Square> squares1 = partners(Square.sq("i", "6"));
         assertTrue("This is not the correct square",
                 squares1.size() == 3);
         assertTrue("This is not the correct square",
@@ -63,7 +72,7 @@ public class UnitTest {
                 squares1.contains(Square.sq("i", "4")));
 
 
-        List<Square> squares2 = board.rookSquare(Square.sq("g", "6"));
+        List<Square> squares2 = partners(Square.sq("g", "6"));
         assertTrue("This is not the correct square",
                 squares2.size() == 4);
         assertTrue("This is not the correct square",
@@ -76,6 +85,509 @@ public class UnitTest {
                 squares2.contains(Square.sq("g", "4")));
     }
 
+    /**
+     * Return the squares recorded in Board.PARTNER for SQUARE.
+     */
+    private static List<Square> partners(Square square) {
+        List<Square> result = new ArrayList<>();
+        for (int partner : Board.PARTNER[square.index()]) {
+            if (partner >= 0) {
+                result.add(Square.sq(partner));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * check the sliding tables: from column 4 of a row with pieces in
+     * columns 1 and 6, a rook reaches columns 2-5 except its own.
+     */
+    @Test
+    public void slidesTest() {
+        assertTrue("Wrong reach", Square.SLIDES[4][0x42] == 0x2c);
+        assertTrue("Wrong reach", Square.SLIDES[0][0] == 0x1fe);
+        assertTrue("Wrong reach", Square.SLIDES[8][0x180] == 0);
+        Board board = new Board();
+        assertTrue("Blocked move allowed",
+                !board.isLegal(Move.mv("a4-6")));
+        assertTrue("Open move refused", board.isLegal(Move.mv("d1-4")));
+    }
+
+    /**
+     * check king captures on and next to the throne, which need black
+     * pieces on all four and all three other sides of the king.
+     */
+    @Test
+    public void throneCaptureTest() {
+        for (int guards = 2; guards <= 4; guards += 1) {
+            Board board = emptyBoard();
+            board.put(Piece.KING, Board.THRONE);
+            board.put(Piece.BLACK, Square.sq("e2"));
+            Square[] sides = {Board.NTHRONE, Board.WTHRONE, Board.ETHRONE};
+            for (int i = 0; i < guards - 1; i += 1) {
+                board.put(Piece.BLACK, sides[i]);
+            }
+            board.makeMove(Move.mv("e2-4"));
+            assertTrue("Wrong capture on the throne",
+                    (board.winner() == Piece.BLACK) == (guards == 4));
+        }
+        for (int guards = 2; guards <= 3; guards += 1) {
+            Board board = emptyBoard();
+            board.put(Piece.KING, Board.NTHRONE);
+            board.put(Piece.BLACK, Square.sq("e9"));
+            board.put(Piece.BLACK, Square.sq("f6"));
+            if (guards == 3) {
+                board.put(Piece.BLACK, Square.sq("d6"));
+            }
+            board.makeMove(Move.mv("e9-7"));
+            assertTrue("Wrong capture next to the throne",
+                    (board.winner() == Piece.BLACK) == (guards == 3));
+            board.unmakeMove();
+            assertTrue("Unmake did not restore the king",
+                    board.kingPosition() == Board.NTHRONE);
+        }
+    }
+
+    /**
+     * Return a board with no pieces and black to move.
+     */
+    private static Board emptyBoard() {
+        Board board = new Board();
+        for (Square s : Square.SQUARE_LIST) {
+            board.put(Piece.EMPTY, s);
+        }
+        return board;
+    }
+
+    /**
+     * check that copies of a History, which share entries, are
+     * independent.
+     */
+    @Test
+    public void historyTest() {
+        History original = new History();
+        for (int i = 0; i < 200; i += 1) {
+            original.push(i);
+        }
+        History copy = new History();
+        copy.copy(original);
+        for (int i = 199; i >= 150; i -= 1) {
+            assertTrue("Wrong entry popped", copy.pop() == i);
+        }
+        copy.push(-1);
+        original.push(200);
+        copy.setTop(-2);
+        assertTrue("Copies are not independent",
+                copy.size() == 151 && copy.peek(0) == -2
+                && copy.peek(1) == 149 && original.size() == 201
+                && original.peek(0) == 200 && original.peek(51) == 149);
+        for (int i = 200; i >= 0; i -= 1) {
+            assertTrue("Wrong entry popped", original.pop() == i);
+        }
+    }
+
+    /**
+     * check that undoing moves on copies of a board leaves the original
+     * alone.
+     */
+    @Test
+    public void copyUndoTest() {
+        Board board = new Board();
+        String[] moves = {"d1-3", "c5-7", "f1-3", "e4-h"};
+        for (String move : moves) {
+            board.makeMove(Move.mv(move));
+        }
+        String position = board.encodedBoard();
+        Board copy = new Board(board);
+        copy.unmakeMove();
+        copy.unmakeMove();
+        copy.makeMove(Move.mv("f1-2"));
+        assertTrue("The original changed",
+                position.equals(board.encodedBoard()));
+        for (int i = 0; i < moves.length; i += 1) {
+            board.unmakeMove();
+        }
+        assertTrue("Undo did not restore the initial position",
+                new Board().encodedBoard().equals(board.encodedBoard()));
+        copy.unmakeMove();
+        copy.unmakeMove();
+        copy.unmakeMove();
+        assertTrue("Undo on the copy failed",
+                board.encodedBoard().equals(copy.encodedBoard()));
+    }
+
+    /**
+     * check perft counts from the initial position against known values,
+     * and that divided and parallel counts agree with them.
+     */
+    @Test
+    public void perftTest() {
+        long[] known = {1, 80, 4400, 353200, 19913864};
+        Board board = new Board();
+        for (int depth = 0; depth < known.length; depth += 1) {
+            assertTrue("Wrong perft count",
+                    Perft.perft(board, depth) == known[depth]);
+        }
+        List<Move> moves = new ArrayList<>();
+        for (int threads = 1; threads <= 2; threads += 1) {
+            long total = 0;
+            for (long count : Perft.divide(board, 3, moves, threads)) {
+                total += count;
+            }
+            assertTrue("Wrong divided perft count",
+                    moves.size() == known[1] && total == known[3]);
+        }
+        assertTrue("Perft changed the board",
+                board.encodedBoard().equals(new Board().encodedBoard()));
+    }
+
+    /**
+     * check the tournament's SPRT arithmetic, and that a game with a
+     * given seed always has the same result.
+     */
+    @Test
+    public void tournamentTest() {
+        assertTrue("Wrong expected score",
+                Tournament.expectedScore(0) == 0.5
+                && Tournament.expectedScore(400) > 0.9);
+        assertTrue("Wrong log-likelihood ratios",
+                Tournament.llr(0, 0, 0, 10) == 0
+                && Tournament.llr(60, 40, 0, 10) > 0
+                && Tournament.llr(40, 60, 0, 10) < 0);
+        Tournament match = new Tournament(Searcher.ALL_FEATURES, 0, 2,
+                Tournament.TABLE_BITS, 1, 0, 10, 0.05, 0.05);
+        assertTrue("No verdict expected yet", match.verdict() == 0);
+        assertTrue("Games are not reproducible",
+                match.play(true, 1) == match.play(true, 1));
+    }
+
+    /**
+     * check that games played on several threads at once have the same
+     * results as when played one at a time.
+     */
+    @Test
+    public void concurrentGamesTest() throws InterruptedException {
+        final int games = 4;
+        Tournament match = new Tournament(Searcher.ALL_FEATURES, 0, 3,
+                Tournament.TABLE_BITS, 1, 0, 10, 0.05, 0.05);
+        boolean[] expected = new boolean[games], results = new boolean[games];
+        for (int k = 0; k < games; k += 1) {
+            expected[k] = match.play(k % 2 == 0, k);
+        }
+        Thread[] threads = new Thread[games];
+        for (int k = 0; k < games; k += 1) {
+            final int game = k;
+            threads[k] = new Thread(() ->
+                    results[game] = match.play(game % 2 == 0, game));
+            threads[k].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (int k = 0; k < games; k += 1) {
+            assertTrue("Concurrent game differs", results[k] == expected[k]);
+        }
+    }
+
+    /**
+     * check setting up a board from its encoding, and a short session
+     * with the engine protocol.
+     */
+    @Test
+    public void engineTest() throws IOException, InterruptedException {
+        Board board = new Board();
+        board.makeMove(Move.mv("d1-3"));
+        board.makeMove(Move.mv("e3-f"));
+        Board copy = new Board();
+        copy.init(board.encodedBoard());
+        assertTrue("Encoding does not round-trip",
+                copy.encodedBoard().equals(board.encodedBoard())
+                && copy.key() == board.key() && copy.turn() == board.turn());
+        String encoded = board.encodedBoard();
+        String[] bad = {
+            "B" + encoded.substring(2),
+            encoded.replace('K', '-'),
+            encoded.replaceFirst("W", "K")
+        };
+        for (String position : bad) {
+            try {
+                copy.init(position);
+                assertTrue("Bad encoding accepted: " + position, false);
+            } catch (IllegalArgumentException excp) {
+                /* Expected. */
+            }
+        }
+
+        String input = "tablut\nposition board " + board.encodedBoard()
+                + "\nposition initial moves d1-3 e3-f\ngo depth 3\n";
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new Engine(new ByteArrayInputStream(input.getBytes()),
+                   new PrintStream(output)).run();
+        String[] lines = output.toString().split("\\R");
+        assertTrue("Wrong replies", lines.length == 6
+                && lines[1].equals("tablutok")
+                && lines[2].startsWith("info depth 1 ")
+                && lines[4].matches("info depth 3 .* pv( \\S+){1,3}")
+                && lines[5].startsWith("bestmove "));
+        Move best = Move.mv(lines[5].substring("bestmove ".length()));
+        assertTrue("Illegal best move", best != null && board.isLegal(best));
+
+        char[] lone = new char[Square.NUM_SQUARES + 1];
+        Arrays.fill(lone, '-');
+        lone[0] = 'B';
+        lone[1 + Board.THRONE.index()] = 'K';
+        List<String> replies =
+                engineSession("position board " + new String(lone),
+                              "go depth 3");
+        assertTrue("Expected bestmove none",
+                replies.equals(Arrays.asList("bestmove none")));
+    }
+
+    /**
+     * check that the engine's results for a seed do not depend on
+     * searches made earlier with other seeds.
+     */
+    @Test
+    public void engineSeedTest() throws Exception {
+        String position = "position initial moves d1-3 e3-f";
+        List<String> fresh =
+                engineSession("seed 5", position, "go depth 3");
+        List<String> reseeded =
+                engineSession("seed 7", position, "go depth 3",
+                              "seed 5", position, "go depth 3");
+        assertTrue("Seed changed the results",
+                lastResult(fresh).equals(lastResult(reseeded)));
+    }
+
+    /**
+     * Send COMMANDS, followed by quit, to a new Engine, waiting after
+     * each go for its bestmove, and return the engine's replies.
+     */
+    private static List<String> engineSession(String... commands)
+        throws IOException, InterruptedException {
+        PipedOutputStream toEngine = new PipedOutputStream();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        Engine engine = new Engine(new PipedInputStream(toEngine),
+                                   new PrintStream(output, true));
+        Thread thread = new Thread(engine::run);
+        thread.start();
+        PrintStream input = new PrintStream(toEngine, true);
+        int searches = 0;
+        for (String command : commands) {
+            input.println(command);
+            if (command.startsWith("go")) {
+                searches += 1;
+                while (output.toString().split("bestmove", -1).length
+                       <= searches) {
+                    Thread.sleep(10);
+                }
+            }
+        }
+        input.println("quit");
+        thread.join();
+        return Arrays.asList(output.toString().split("\\R"));
+    }
+
+    /**
+     * Return the depth, score, and best move at the end of REPLIES, the
+     * replies to a go command.
+     */
+    private static String lastResult(List<String> replies) {
+        String info = replies.get(replies.size() - 2);
+        return info.replaceFirst(" nodes .*", "") + " "
+                + replies.get(replies.size() - 1);
+    }
+
+    /**
+     * check that with a small time budget per move, each side of an
+     * AI-only game answers with a legal move, its search having stopped
+     * for lack of time short of the depth it would reach with none.
+     */
+    @Test
+    public void timedMoveTest() {
+        final long budget = 50;
+        Controller controller =
+                new Controller(new NullView(), null, new NullReporter(),
+                               new TextPlayer(), new TextPlayer(), false);
+        controller.setSeed(5);
+        controller.setMoveTime(budget);
+        Board board = controller.board();
+        board.init();
+        AI[] players = {
+            new AI(Piece.BLACK, controller, 1, Searcher.ALL_FEATURES),
+            new AI(Piece.WHITE, controller, 1, Searcher.ALL_FEATURES)
+        };
+        for (int k = 0; k < 8 && board.winner() == null; k += 1) {
+            AI player = players[k % 2];
+            long start = System.currentTimeMillis();
+            Move move = Move.mv(player.myMove());
+            long elapsed = System.currentTimeMillis() - start;
+            assertTrue("Search was not cut short",
+                    player.depth() < Searcher.MAX_DEPTH);
+            assertTrue("Move took " + elapsed + " ms",
+                    elapsed < budget + 1000);
+            assertTrue("Bad move", board.isLegal(move));
+            board.makeMove(move);
+        }
+    }
+
+    /**
+     * check that an AI pondering in depth mode plays as one that does
+     * not when its predictions come true, and copes when they do not.
+     */
+    @Test
+    public void ponderTest() {
+        Controller controller =
+                new Controller(new NullView(), null, new NullReporter(),
+                               new TextPlayer(), new TextPlayer(), false);
+        controller.setSeed(3);
+        Board board = controller.board();
+        board.init();
+        board.makeMove(Move.mv("d1-3"));
+        AI pondering = new AI(Piece.WHITE, controller, 1,
+                              Searcher.ALL_FEATURES, true),
+            plain = new AI(Piece.WHITE, controller, 1,
+                           Searcher.ALL_FEATURES, false);
+        for (int k = 0; k < 3; k += 1) {
+            String move = pondering.myMove();
+            assertTrue("Pondering changed the move",
+                    move.equals(plain.myMove()));
+            board.makeMove(Move.mv(move));
+            Move reply = pondering.ponderReply();
+            assertTrue("No prediction", reply != null
+                    && board.isLegal(reply));
+            board.makeMove(reply);
+        }
+        board.undo();
+        for (Move reply : board.legalMoves(Piece.BLACK)) {
+            if (reply != pondering.ponderReply()) {
+                board.makeMove(reply);
+                break;
+            }
+        }
+        String move = pondering.myMove();
+        assertTrue("Bad move after a wrong prediction",
+                move != null && board.isLegal(Move.mv(move)));
+        pondering.idle();
+        assertTrue("Still pondering when idle", !pondering.pondering());
+    }
+
+    /**
+     * check that with a time limit per move, an AI ponders past the
+     * limit until its opponent moves, and then finishes pondering (its
+     * ponder thread having been joined) as it chooses its move.
+     */
+    @Test
+    public void timedPonderTest() throws InterruptedException {
+        final long budget = 20;
+        Controller controller =
+                new Controller(new NullView(), null, new NullReporter(),
+                               new TextPlayer(), new TextPlayer(), false);
+        controller.setSeed(3);
+        controller.setMoveTime(budget);
+        Board board = controller.board();
+        board.init();
+        board.makeMove(Move.mv("d1-3"));
+        AI ai = new AI(Piece.WHITE, controller, 1,
+                       Searcher.ALL_FEATURES, true);
+        board.makeMove(Move.mv(ai.myMove()));
+        Thread ponder = ai.ponderThread();
+        assertTrue("Not pondering", ponder != null);
+        Thread.sleep(3 * budget);
+        assertTrue("Pondering stopped early", ponder.isAlive());
+        board.makeMove(ai.ponderReply());
+        Move move = Move.mv(ai.myMove());
+        assertTrue("Pondering not finished", !ponder.isAlive());
+        assertTrue("Bad move", board.isLegal(move));
+        Thread next = ai.ponderThread();
+        assertTrue("Not pondering the next move",
+                next != null && next != ponder);
+        ai.idle();
+        assertTrue("Still pondering when idle",
+                !next.isAlive() && !ai.pondering());
+    }
+
+    /**
+     * check cancelling an AI's search, directly and by a command given
+     * while the Controller waits for the AI's move.
+     */
+    @Test
+    public void cancelMoveTest() throws Exception {
+        Controller controller =
+                new Controller(new NullView(), null, new NullReporter(),
+                               new TextPlayer(), new TextPlayer(), false);
+        controller.setSeed(1);
+        Board board = controller.board();
+        board.init();
+        board.makeMove(Move.mv("d1-3"));
+        AI ai = new AI(Piece.WHITE, controller, 2, Searcher.ALL_FEATURES);
+        Future<String> move = ai.startMove();
+        assertTrue("Cancel failed", move.cancel(true) && move.isCancelled());
+        String next = ai.myMove();
+        assertTrue("Bad move after cancel",
+                next != null && board.isLegal(Move.mv(next)));
+
+        Player quitter = new CommandPlayer("d1-3", "quit");
+        controller = new Controller(new NullView(), null, new NullReporter(),
+                                    quitter, new AI(), false);
+        controller.play();
+        assertTrue("The AI should not have moved",
+                controller.board().moveCount() == 1);
+    }
+
+    /**
+     * A manual player giving the commands in a fixed list, the first as
+     * a move and the rest as commands given at any time.
+     */
+    private static class CommandPlayer extends Player {
+
+        /**
+         * A template giving COMMANDS.
+         */
+        CommandPlayer(String... commands) {
+            this(null, null, new ArrayList<>(Arrays.asList(commands)));
+        }
+
+        /**
+         * A player of PIECE under CONTROLLER, giving COMMANDS.
+         */
+        CommandPlayer(Piece piece, Controller controller,
+                      List<String> commands) {
+            super(piece, controller);
+            _commands = commands;
+        }
+
+        @Override
+        Player create(Piece piece, Controller controller) {
+            return new CommandPlayer(piece, controller, _commands);
+        }
+
+        @Override
+        boolean isManual() {
+            return true;
+        }
+
+        @Override
+        String myMove() {
+            return _commands.isEmpty() ? "quit" : _commands.remove(0);
+        }
+
+        @Override
+        boolean takesCommandsAnytime() {
+            return true;
+        }
+
+        @Override
+        String pollCommand(long millis) {
+            return myMove();
+        }
+
+        /**
+         * The commands still to be given, shared with my template.
+         */
+        private final List<String> _commands;
+    }
+
     /**
      * check the legal moves.
      */
@@ -87,6 +599,239 @@ public class UnitTest {
                 56 == moves.size());
     }
 
+    /**
+     * check hasMove on blocked pieces, including one next to the throne.
+     */
+    @Test
+    public void hasMoveTest() {
+        Board board = new Board();
+        for (Square s : Square.SQUARE_LIST) {
+            board.put(Piece.EMPTY, s);
+        }
+        board.put(Piece.KING, Square.sq("e9"));
+        board.put(Piece.BLACK, Square.sq("d5"));
+        board.put(Piece.WHITE, Square.sq("c5"));
+        board.put(Piece.WHITE, Square.sq("d4"));
+        board.put(Piece.WHITE, Square.sq("d6"));
+        assertTrue("Black may move through the throne",
+                board.hasMove(Piece.BLACK));
+        board.put(Piece.WHITE, Square.sq("f5"));
+        assertTrue("Black has no move",
+                !board.hasMove(Piece.BLACK)
+                && board.legalMoves(Piece.BLACK).isEmpty());
+        assertTrue("White has moves", board.hasMove(Piece.WHITE));
+    }
+
+    /**
+     * check that evaluations are reproducible for a given seed.
+     */
+    @Test
+    public void seededScoreTest() {
+        Board board = new Board();
+        board.makeMove(Move.mv("d1-3"));
+        int score = AI.staticScore(board, 61);
+        assertTrue("The same position and seed should score the same",
+                score == AI.staticScore(new Board(board), 61));
+        int jitter = AI.jitter(board, 61);
+        assertTrue("The noise is out of range", jitter >= 0 && jitter < 1000);
+    }
+
+    /**
+     * check the packed moves against the legal moves.
+     */
+    @Test
+    public void generateMovesTest() {
+        Board board = new Board();
+        board.makeMove(Move.mv("d1-3"));
+        int[] packed = new int[Board.MAX_MOVES];
+        for (Piece side : new Piece[] {Piece.WHITE, Piece.BLACK}) {
+            List<Move> moves = board.legalMoves(side);
+            int n = board.generateMoves(side, packed);
+            assertTrue("This is the wrong number of moves",
+                    n == moves.size());
+            for (int i = 0; i < n; i += 1) {
+                assertTrue("This is the wrong move",
+                        Move.mv(packed[i]) == moves.get(i));
+            }
+        }
+    }
+
+    /**
+     * check the queries answered from the bitboards.
+     */
+    @Test
+    public void bitboardQueryTest() {
+        Board board = new Board();
+        assertTrue("Wrong king position",
+                board.kingPosition() == Board.THRONE);
+        assertTrue("This is an unblocked move!",
+                board.isUnblockedMove(Square.sq("a4"), Square.sq("d4")));
+        assertTrue("This is a blocked move!",
+                !board.isUnblockedMove(Square.sq("a4"), Square.sq("i4")));
+        assertTrue("This is the wrong number of pieces",
+                board.pieceLocations(Piece.BLACK).size() == 16
+                && board.pieceLocations(Piece.WHITE).size() == 9);
+        assertTrue("The piece counts are wrong",
+                board.pieceCount(Piece.BLACK) == 16
+                && board.pieceCount(Piece.WHITE) == 9);
+        assertTrue("The rows and columns are wrong",
+                board.rankBits(Piece.BLACK, 0) == 0x38
+                && board.fileBits(Piece.BLACK, 4) == 0x183
+                && board.rankBits(Piece.EMPTY, 3) == 0xee);
+
+        board.put(Piece.EMPTY, Board.THRONE);
+        board.put(Piece.KING, Square.sq("e9"));
+        assertTrue("The king on the edge should end the game",
+                board.checkGameOver());
+        for (Move move : board.legalMoves(Piece.WHITE)) {
+            assertTrue("Only the king may enter the throne",
+                    move.to() != Board.THRONE);
+        }
+    }
+
+    /**
+     * check that unmakeMove restores the position, including captures.
+     */
+    @Test
+    public void makeUnmakeTest() {
+        Board board = new Board();
+        String[] moves = {"d1-3", "c5-7", "f1-3", "e4-h"};
+        String[] positions = new String[moves.length];
+        for (int i = 0; i < moves.length; i += 1) {
+            positions[i] = board.encodedBoard();
+            board.makeMove(Move.mv(moves[i]));
+        }
+        assertTrue("The black piece should have been captured",
+                board.get(Square.sq("c2")) == Piece.EMPTY);
+        assertTrue("The white piece should have been captured",
+                board.pieceCount(Piece.WHITE) == 8);
+        for (int i = moves.length - 1; i >= 0; i -= 1) {
+            board.unmakeMove();
+            assertTrue("Unmake did not restore the position",
+                    positions[i].equals(board.encodedBoard()));
+        }
+        assertTrue("Unmake did not restore the move count",
+                board.moveCount() == 0 && board.turn() == Piece.BLACK);
+        assertTrue("Unmake did not restore the piece lists",
+                board.pieceCount(Piece.WHITE) == 9
+                && board.pieceLocations(Piece.WHITE).size() == 9
+                && board.kingPosition() == Board.THRONE);
+
+        board.put(Piece.EMPTY, Board.NTHRONE);
+        board.makeMove(Move.mv("e5-6"));
+        assertTrue("The king should have moved",
+                board.kingPosition() == Board.NTHRONE);
+        board.unmakeMove();
+        assertTrue("Unmake did not restore the king",
+                board.kingPosition() == Board.THRONE);
+    }
+
+    /**
+     * check the position keys and the detection of repeated positions.
+     */
+    @Test
+    public void repeatedPositionTest() {
+        Board board = new Board();
+        long initial = board.key();
+        String[] moves = {"d1-c", "e3-d", "c1-d", "d3-e"};
+        for (String move : moves) {
+            board.makeMove(Move.mv(move));
+        }
+        assertTrue("The same position should have the same key",
+                board.key() == initial && board.winner() == null);
+        board.makeMove(Move.mv("d1-c"));
+        assertTrue("Repeating a position should lose",
+                board.repeatedPosition() && board.winner() == Piece.WHITE);
+        board.unmakeMove();
+        assertTrue("Unmake should clear the repetition",
+                !board.repeatedPosition() && board.key() == initial);
+    }
+
+    /**
+     * check that passing (see Board.makeNullMove) does not make a
+     * repetition: with black passing twice, white's moving a piece away
+     * and back does not repeat the position before the passes.
+     */
+    @Test
+    public void nullMoveRepetitionTest() {
+        Board board = new Board();
+        board.makeMove(Move.mv("a4-b"));
+        board.makeMove(Move.mv("g5-3"));
+        long before = board.key();
+        board.makeNullMove();
+        board.makeMove(Move.mv("c5-3"));
+        board.makeNullMove();
+        board.makeMove(Move.mv("c3-5"));
+        assertTrue("Passing should not make a repetition",
+                board.key() == before && !board.repeatedPosition()
+                && board.winner() == null);
+    }
+
+    /**
+     * check that when the value of the initial position moves by more
+     * than the aspiration window from one depth to the next (up at depth
+     * 4 and down at 5), so that the first search at the root must fail,
+     * iterative deepening still finds the move and value of a single
+     * search with a full window.
+     */
+    @Test
+    public void aspirationTest() {
+        Board board = new Board();
+        for (int depth = 4; depth <= 5; depth += 1) {
+            Searcher previous = fixedSearch(board, depth - 1, depth - 1),
+                full = fixedSearch(board, depth, depth),
+                aspirated = fixedSearch(board, 1, depth);
+            assertTrue("The root search should fail",
+                    Math.abs(full.score() - previous.score())
+                    > Searcher.ASPIRATION_WINDOW);
+            assertTrue("Aspiration changed the result",
+                    aspirated.score() == full.score()
+                    && aspirated.principalVariation().get(0)
+                       == full.principalVariation().get(0));
+        }
+    }
+
+    /**
+     * Return a Searcher, with no optional features and a fresh table,
+     * that has searched BOARD to depths FIRSTDEPTH through LASTDEPTH.
+     */
+    private static Searcher fixedSearch(Board board, int firstDepth,
+                                        int lastDepth) {
+        Searcher searcher = new Searcher(new TranspositionTable(16));
+        searcher.setFeatures(0);
+        searcher.setPosition(board, 0);
+        searcher.search(firstDepth, lastDepth, System.currentTimeMillis(),
+                        0);
+        return searcher;
+    }
+
+    /**
+     * check storing, probing, and replacing transposition table entries.
+     */
+    @Test
+    public void transpositionTableTest() {
+        TranspositionTable table = new TranspositionTable(4);
+        int move = Move.mv("i6-g").packed();
+        table.store(0x35L, 3, -120, TranspositionTable.LOWER, move);
+        long entry = table.probe(0x35L);
+        assertTrue("The entry should be found", entry != 0);
+        assertTrue("The entry was not stored correctly",
+                TranspositionTable.score(entry) == -120
+                && TranspositionTable.depth(entry) == 3
+                && TranspositionTable.bound(entry)
+                    == TranspositionTable.LOWER
+                && Move.mv(TranspositionTable.move(entry)) == Move.mv("i6-g"));
+        assertTrue("A different key should miss", table.probe(0x45L) == 0);
+
+        table.store(0x45L, 2, 7, TranspositionTable.EXACT, 0);
+        assertTrue("A shallower entry should not replace a deeper one",
+                table.probe(0x35L) != 0 && table.probe(0x45L) == 0);
+        table.newSearch();
+        table.store(0x45L, 2, 7, TranspositionTable.EXACT, 0);
+        assertTrue("An entry from an old search should be replaced",
+                table.probe(0x35L) == 0 && table.probe(0x45L) != 0);
+    }
+
     /**
      * A dummy test as a placeholder for real ones.
      */